@@ -18,10 +18,10 @@
 package com.github.mykh.activities;
 
 import com.github.mykh.R;
-import com.github.mykh.common.ConfigList;
 import com.github.mykh.system.SysInfo;
-import com.github.mykh.views.IConfigFormatter;
 import com.github.mykh.views.ConfigFormatter_PlainText;
+import com.github.mykh.views.IReportListener;
+import com.github.mykh.views.ReportStream;
 
 import android.app.Activity;
 import android.os.Bundle;
@@ -35,6 +35,7 @@ public class SysInfoActivity extends Activity {
 
 	private SysInfo info;
 	private TextView textView;
+	private int currentRefreshId = 0; // accessed on the UI thread only
 
 	/** Called when the activity is first created. */
 	@Override
@@ -47,6 +48,24 @@ public class SysInfoActivity extends Activity {
 		refresh();
 	}
 
+	@Override
+	protected void onResume() {
+		super.onResume();
+		info.startSampling();
+	}
+
+	@Override
+	protected void onPause() {
+		info.stopSampling();
+		super.onPause();
+	}
+
+	@Override
+	protected void onDestroy() {
+		info.release();
+		super.onDestroy();
+	}
+
 	@Override
 	public boolean onCreateOptionsMenu(Menu menu) {
 		super.onCreateOptionsMenu(menu);
@@ -69,11 +88,36 @@ public class SysInfoActivity extends Activity {
 		}
 
 	private void refresh() {
-		ConfigList config = new ConfigList("");
-		info.process(config);
-		StringBuilder report = new StringBuilder();
-		IConfigFormatter formatter = new ConfigFormatter_PlainText();
-		formatter.process(config, report, 0);
-		textView.setText(report.toString());
+		final int refreshId = ++currentRefreshId;
+		textView.setText(R.string.loading);
+		final ReportStream stream = new ReportStream(new ConfigFormatter_PlainText(), new IReportListener() {
+			private boolean first = true;
+
+			public void onChunk(CharSequence chunk) {
+				final boolean replace = first;
+				final String text = chunk.toString();
+				first = false;
+				runOnUiThread(new Runnable() {
+					public void run() {
+						if (refreshId != currentRefreshId) {
+							return; // a newer refresh has been started
+						}
+						if (replace) {
+							textView.setText(text);
+						} else {
+							textView.append(text);
+						}
+					}
+				});
+			}
+
+			public void onComplete() {
+			}
+		});
+		new Thread(new Runnable() {
+			public void run() {
+				info.process(stream);
+			}
+		}, "SysInfo-refresh").start();
 	}
 }
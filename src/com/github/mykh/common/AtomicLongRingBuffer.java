@@ -0,0 +1,89 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size history like {@link LongRingBuffer} for one writer thread and any
+ * number of reader threads. Neither side takes a lock: the writer bumps a
+ * sequence number to odd before and to even after each record, and readers
+ * copy the buffer and retry if the sequence changed meanwhile, so a reader
+ * never sees a half written record and never delays the writer.
+ */
+public class AtomicLongRingBuffer {
+	private final AtomicLongArray data;
+	private final AtomicLong sequence = new AtomicLong();
+	private final int capacity;
+	private final int width;
+	private volatile long count = 0; // records ever added
+
+	public AtomicLongRingBuffer(int capacity, int width) {
+		this.capacity = capacity;
+		this.width = width;
+		this.data = new AtomicLongArray(capacity * width);
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public int width() {
+		return width;
+	}
+
+	/** Appends the first {@link #width()} values of record. Single writer only. */
+	public void add(long[] record) {
+		long seq = sequence.get();
+		sequence.set(seq + 1);
+		int offset = (int) (count % capacity) * width;
+		for (int i = 0; i < width; i++) {
+			data.set(offset + i, record[i]);
+		}
+		count++;
+		sequence.set(seq + 2);
+	}
+
+	/**
+	 * Replaces the content of dest, which must have the same width, with a
+	 * consistent copy of this buffer.
+	 */
+	public void copyTo(LongRingBuffer dest) {
+		long[] record = new long[width];
+		while (true) {
+			long seq = sequence.get();
+			if ((seq & 1) != 0) {
+				Thread.yield(); // a record is being written
+				continue;
+			}
+			dest.clear();
+			long last = count;
+			for (long i = Math.max(0, last - Math.min(capacity, dest.capacity())); i < last; i++) {
+				int offset = (int) (i % capacity) * width;
+				for (int j = 0; j < width; j++) {
+					record[j] = data.get(offset + j);
+				}
+				dest.add(record);
+			}
+			if (sequence.get() == seq) {
+				return;
+			}
+		}
+	}
+}
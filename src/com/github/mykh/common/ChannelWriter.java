@@ -0,0 +1,156 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Writer that encodes text as UTF-8 into one fixed byte buffer and writes the
+ * buffer to a channel whenever it is full. Memory use does not depend on the
+ * amount of text written. Not thread safe.
+ */
+public class ChannelWriter extends Writer {
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final CharsetEncoder encoder;
+	private final CharBuffer pair = CharBuffer.allocate(2);
+	private final CharBuffer single = CharBuffer.allocate(1);
+	private char pendingHigh = 0;
+	private boolean closed = false;
+
+	public ChannelWriter(WritableByteChannel channel, int bufferSize) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		this.encoder = Charset.forName("UTF-8").newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	public ChannelWriter(WritableByteChannel channel) {
+		this(channel, DEFAULT_BUFFER_SIZE);
+	}
+
+	private void encode(CharBuffer chars) throws IOException {
+		if (closed) {
+			throw new IOException("Writer is closed");
+		}
+		// Complete the surrogate pair split over two writes. If the next char is
+		// not a low surrogate, the pending one is replaced and that char may be
+		// a high surrogate itself, so go on until no char is pending.
+		while (pendingHigh != 0 && chars.hasRemaining()) {
+			pair.clear();
+			pair.put(pendingHigh).put(chars.get());
+			pair.flip();
+			pendingHigh = 0;
+			encodeChunk(pair);
+		}
+		encodeChunk(chars);
+	}
+
+	private void encodeChunk(CharBuffer chars) throws IOException {
+		while (true) {
+			CoderResult result = encoder.encode(chars, buffer, false);
+			if (result.isOverflow()) {
+				drain();
+			} else {
+				// Underflow; the encoder leaves an unpaired high surrogate at the
+				// end in chars, keep it for the next write.
+				if (chars.hasRemaining()) {
+					pendingHigh = chars.get();
+				}
+				return;
+			}
+		}
+	}
+
+	/** Writes the buffered bytes to the channel. */
+	private void drain() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public void write(char[] chars, int offset, int count) throws IOException {
+		encode(CharBuffer.wrap(chars, offset, count));
+	}
+
+	@Override
+	public void write(String str, int offset, int count) throws IOException {
+		encode(CharBuffer.wrap(str, offset, offset + count));
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		single.clear();
+		single.put((char) c);
+		single.flip();
+		encode(single);
+	}
+
+	@Override
+	public Writer append(CharSequence csq, int start, int end) throws IOException {
+		encode(CharBuffer.wrap((csq == null) ? "null" : csq, start, end));
+		return this;
+	}
+
+	@Override
+	public Writer append(CharSequence csq) throws IOException {
+		CharSequence chars = (csq == null) ? "null" : csq;
+		encode(CharBuffer.wrap(chars, 0, chars.length()));
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (!closed) {
+			drain();
+		}
+	}
+
+	/** Flushes and closes the channel. */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			CharBuffer rest = CharBuffer.wrap((pendingHigh != 0) ? String.valueOf(pendingHigh) : "");
+			// an unpaired surrogate at the very end is replaced
+			while (encoder.encode(rest, buffer, true).isOverflow()) {
+				drain();
+			}
+			encoder.flush(buffer);
+			drain();
+		} finally {
+			closed = true;
+			channel.close();
+		}
+	}
+}
@@ -25,6 +25,11 @@ public class Config extends ConfigBase {
 		this.value = Value;
 	}
 
+	public Config(ConfigSchema schema, String value) {
+		super(schema);
+		this.value = value;
+	}
+
 	public Config(String Name, String Value) {
 		this(Name, Value, "");
 	}
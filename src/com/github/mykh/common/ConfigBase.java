@@ -18,18 +18,32 @@
 package com.github.mykh.common;
 
 public class ConfigBase {
-	protected String name;
-	protected String hint;
+	private final String name;
+	private final String hint;
+	private final ConfigSchema schema;
 
+	public ConfigBase(ConfigSchema schema) {
+		this.name = schema.getName();
+		this.hint = schema.getHint();
+		this.schema = schema;
+	}
+
+	/** Keeps the strings in the node, see {@link ConfigSchema#of} for names that do not change. */
 	public ConfigBase(String name, String hint) {
 		this.name = name;
 		this.hint = hint;
+		this.schema = null;
 	}
 
 	public ConfigBase(String name) {
 		this(name, "");
 	}
 
+	/** The shared schema the node was built from, null for a node built from plain strings. */
+	public ConfigSchema getSchema() {
+		return schema;
+	}
+
 	public String getName() {
 		return name;
 	}
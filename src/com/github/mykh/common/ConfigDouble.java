@@ -0,0 +1,60 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+/** Fractional value with a unit and the number of decimals it is shown with. */
+public class ConfigDouble extends Config {
+	private final double number;
+	private final int decimals;
+	private final Unit unit;
+
+	public ConfigDouble(String name, double number, int decimals, Unit unit, String hint) {
+		super(name, null, hint);
+		this.number = number;
+		this.decimals = decimals;
+		this.unit = unit;
+	}
+
+	public ConfigDouble(ConfigSchema schema, double number, int decimals, Unit unit) {
+		super(schema, null);
+		this.number = number;
+		this.decimals = decimals;
+		this.unit = unit;
+	}
+
+	public ConfigDouble(String name, double number, int decimals, Unit unit) {
+		this(name, number, decimals, unit, "");
+	}
+
+	public double getDouble() {
+		return number;
+	}
+
+	public int getDecimals() {
+		return decimals;
+	}
+
+	public Unit getUnit() {
+		return unit;
+	}
+
+	@Override
+	public String getValue() {
+		return unit.format(number, decimals);
+	}
+}
@@ -0,0 +1,56 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+/**
+ * Code of an enumeration like a BatteryManager constant, together with its
+ * label. The label is shown; the code is kept for comparisons.
+ */
+public class ConfigEnum extends Config {
+	private final int code;
+
+	/** @param label null shows the code */
+	public ConfigEnum(String name, int code, String label, String hint) {
+		super(name, label, hint);
+		this.code = code;
+	}
+
+	/** @param label null shows the code */
+	public ConfigEnum(ConfigSchema schema, int code, String label) {
+		super(schema, label);
+		this.code = code;
+	}
+
+	public ConfigEnum(String name, int code, String label) {
+		this(name, code, label, "");
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	/** The label, null if there is none. */
+	public String getLabel() {
+		return value;
+	}
+
+	@Override
+	public String getValue() {
+		return (value != null) ? value : Integer.toString(code);
+	}
+}
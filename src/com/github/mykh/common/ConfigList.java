@@ -18,16 +18,28 @@
 package com.github.mykh.common;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ConfigList extends ConfigBase {
+	public enum State {
+		OK, TIMED_OUT, FAILED
+	}
+
 	protected List<ConfigBase> items;
+	protected State state = State.OK;
+	protected String stateMessage;
 
 	public ConfigList(String Name, String Hint) {
 		super(Name, Hint);
 		this.items = new ArrayList<ConfigBase>();
 	}
 
+	public ConfigList(ConfigSchema schema) {
+		super(schema);
+		this.items = new ArrayList<ConfigBase>();
+	}
+
 	public ConfigList(String Name) {
 		this(Name, "");
 	}
@@ -35,4 +47,30 @@ public class ConfigList extends ConfigBase {
 	public List<ConfigBase> getItems() {
 		return items;
 	}
+
+	public State getState() {
+		return state;
+	}
+
+	public String getStateMessage() {
+		return stateMessage;
+	}
+
+	public void setState(State state, String message) {
+		this.state = state;
+		this.stateMessage = message;
+	}
+
+	/**
+	 * Makes this list and all nested lists read-only, so the subtree can be
+	 * shared between reports.
+	 */
+	public void seal() {
+		for (ConfigBase item : items) {
+			if (item instanceof ConfigList) {
+				((ConfigList) item).seal();
+			}
+		}
+		items = Collections.unmodifiableList(items);
+	}
 };
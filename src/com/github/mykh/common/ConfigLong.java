@@ -0,0 +1,53 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+/** Integer value with a unit, rendered only when the value text is asked for. */
+public class ConfigLong extends Config {
+	private final long number;
+	private final Unit unit;
+
+	public ConfigLong(String name, long number, Unit unit, String hint) {
+		super(name, null, hint);
+		this.number = number;
+		this.unit = unit;
+	}
+
+	public ConfigLong(ConfigSchema schema, long number, Unit unit) {
+		super(schema, null);
+		this.number = number;
+		this.unit = unit;
+	}
+
+	public ConfigLong(String name, long number, Unit unit) {
+		this(name, number, unit, "");
+	}
+
+	public long getLong() {
+		return number;
+	}
+
+	public Unit getUnit() {
+		return unit;
+	}
+
+	@Override
+	public String getValue() {
+		return unit.format(number);
+	}
+}
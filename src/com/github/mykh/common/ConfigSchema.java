@@ -0,0 +1,99 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Name and hint of a config node. Schemas made with {@link #of} are interned,
+ * so every node built from the same static schema refers to one shared
+ * instance instead of carrying its own strings, and the lookup is done once,
+ * not on every refresh. Nodes created with a plain name keep the strings
+ * themselves and have no schema, so names that keep changing (process names,
+ * paths, environment keys) neither enter the table nor cost an extra object
+ * per node. Only the first
+ * {@link #MAX_INTERNED} distinct schemas are interned. Thread safe.
+ */
+public final class ConfigSchema {
+	public static final int MAX_INTERNED = 4096;
+
+	// name -> hint -> schema, so no key has to be built from the two strings
+	private static final ConcurrentHashMap<String, ConcurrentHashMap<String, ConfigSchema>> interned = new ConcurrentHashMap<String, ConcurrentHashMap<String, ConfigSchema>>();
+	private static final AtomicInteger nextId = new AtomicInteger();
+
+	private final int id;
+	private final String name;
+	private final String hint;
+
+	private ConfigSchema(int id, String name, String hint) {
+		this.id = id;
+		this.name = name;
+		this.hint = hint;
+	}
+
+	/**
+	 * Returns the shared schema for name and hint. Meant for schemas kept in
+	 * static fields, not for names built at run time.
+	 */
+	public static ConfigSchema of(String name, String hint) {
+		if (name == null || hint == null) {
+			return unshared(name, hint);
+		}
+		ConcurrentHashMap<String, ConfigSchema> byHint = interned.get(name);
+		if (byHint == null) {
+			byHint = new ConcurrentHashMap<String, ConfigSchema>(2);
+			ConcurrentHashMap<String, ConfigSchema> existing = interned.putIfAbsent(name, byHint);
+			if (existing != null) {
+				byHint = existing;
+			}
+		}
+		ConfigSchema schema = byHint.get(hint);
+		if (schema != null) {
+			return schema;
+		}
+		if (nextId.get() >= MAX_INTERNED) {
+			return unshared(name, hint);
+		}
+		schema = new ConfigSchema(nextId.getAndIncrement(), name, hint);
+		ConfigSchema existing = byHint.putIfAbsent(hint, schema);
+		return (existing != null) ? existing : schema;
+	}
+
+	public static ConfigSchema of(String name) {
+		return of(name, "");
+	}
+
+	/** Returns a new schema that is not interned, for names built at run time. */
+	public static ConfigSchema unshared(String name, String hint) {
+		return new ConfigSchema(-1, name, hint);
+	}
+
+	/** Number unique to this schema within the process, -1 if it is not interned. */
+	public int getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getHint() {
+		return hint;
+	}
+}
@@ -0,0 +1,186 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Compact binary form of a config tree, used to persist sections between runs.
+ * Typed values keep their number and unit, and lists their state, so a tree
+ * read back renders like the one that was written. A lazy value is written
+ * with its evaluated value and read back as a plain {@link Config}.
+ */
+public class ConfigSerializer {
+	private static final byte TAG_CONFIG = 1;
+	private static final byte TAG_LIST = 2;
+	private static final byte TAG_LONG = 3;
+	private static final byte TAG_DOUBLE = 4;
+	private static final byte TAG_BOOLEAN = 5;
+	private static final byte TAG_ENUM = 6;
+
+	/** Lists nested deeper than this are rejected, a corrupt file must not overflow the stack. */
+	public static final int MAX_DEPTH = 32;
+
+	/**
+	 * Writes str as an int byte count (-1 for null) followed by its UTF-8
+	 * bytes. Unlike writeUTF() there is no 64 KB limit, environment values
+	 * and class paths can be longer than that.
+	 */
+	public static void writeString(DataOutput out, String str) throws IOException {
+		if (str == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = str.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * @param limit the largest byte count accepted, normally the size of the
+	 *            input, so a corrupt count can not allocate more than that
+	 */
+	public static String readString(DataInput in, int limit) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		if (length > limit) {
+			throw new IOException("String of " + length + " bytes, at most " + limit + " expected");
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	public static void write(DataOutput out, ConfigBase node) throws IOException {
+		if (node instanceof ConfigList) {
+			ConfigList list = (ConfigList) node;
+			List<ConfigBase> items = list.getItems();
+			out.writeByte(TAG_LIST);
+			writeNames(out, node);
+			out.writeByte(list.getState().ordinal());
+			if (list.getState() != ConfigList.State.OK) {
+				writeString(out, list.getStateMessage());
+			}
+			out.writeInt(items.size());
+			for (ConfigBase item : items) {
+				write(out, item);
+			}
+		} else if (node instanceof ConfigLong) {
+			ConfigLong typed = (ConfigLong) node;
+			out.writeByte(TAG_LONG);
+			writeNames(out, node);
+			out.writeLong(typed.getLong());
+			out.writeByte(typed.getUnit().ordinal());
+		} else if (node instanceof ConfigDouble) {
+			ConfigDouble typed = (ConfigDouble) node;
+			out.writeByte(TAG_DOUBLE);
+			writeNames(out, node);
+			out.writeDouble(typed.getDouble());
+			out.writeByte(typed.getDecimals());
+			out.writeByte(typed.getUnit().ordinal());
+		} else if (node instanceof ConfigBoolean) {
+			out.writeByte(TAG_BOOLEAN);
+			writeNames(out, node);
+			out.writeBoolean(((ConfigBoolean) node).getBoolean());
+		} else if (node instanceof ConfigEnum) {
+			ConfigEnum typed = (ConfigEnum) node;
+			out.writeByte(TAG_ENUM);
+			writeNames(out, node);
+			out.writeInt(typed.getCode());
+			writeString(out, typed.getLabel());
+		} else if (node instanceof Config) {
+			out.writeByte(TAG_CONFIG);
+			writeNames(out, node);
+			writeString(out, ((Config) node).getValue());
+		} else {
+			throw new IOException("Unsupported node: " + node.getClass().getName());
+		}
+	}
+
+	private static void writeNames(DataOutput out, ConfigBase node) throws IOException {
+		writeString(out, node.getName());
+		writeString(out, node.getHint());
+	}
+
+	/** @param limit the largest string byte count and item count accepted, normally the size of the input */
+	public static ConfigBase read(DataInput in, int limit) throws IOException {
+		return read(in, limit, 0);
+	}
+
+	private static ConfigBase read(DataInput in, int limit, int depth) throws IOException {
+		byte tag = in.readByte();
+		String name = readString(in, limit);
+		String hint = readString(in, limit);
+		switch (tag) {
+		case TAG_CONFIG:
+			return new Config(name, readString(in, limit), hint);
+		case TAG_LIST:
+			if (depth >= MAX_DEPTH) {
+				throw new IOException("Lists nested deeper than " + MAX_DEPTH);
+			}
+			ConfigList list = new ConfigList(name, hint);
+			ConfigList.State[] states = ConfigList.State.values();
+			int state = in.readUnsignedByte();
+			if (state >= states.length) {
+				throw new IOException("Unknown list state: " + state);
+			}
+			if (states[state] != ConfigList.State.OK) {
+				list.setState(states[state], readString(in, limit));
+			}
+			int count = in.readInt();
+			if (count < 0 || count > limit) {
+				throw new IOException("List of " + count + " items, at most " + limit + " expected");
+			}
+			for (int i = 0; i < count; i++) {
+				list.getItems().add(read(in, limit, depth + 1));
+			}
+			return list;
+		case TAG_LONG: {
+			long number = in.readLong();
+			return new ConfigLong(name, number, readUnit(in), hint);
+		}
+		case TAG_DOUBLE: {
+			double number = in.readDouble();
+			int decimals = in.readUnsignedByte();
+			return new ConfigDouble(name, number, decimals, readUnit(in), hint);
+		}
+		case TAG_BOOLEAN:
+			return new ConfigBoolean(name, in.readBoolean(), hint);
+		case TAG_ENUM: {
+			int code = in.readInt();
+			return new ConfigEnum(name, code, readString(in, limit), hint);
+		}
+		default:
+			throw new IOException("Unknown node tag: " + tag);
+		}
+	}
+
+	private static Unit readUnit(DataInput in) throws IOException {
+		Unit[] units = Unit.values();
+		int unit = in.readUnsignedByte();
+		if (unit >= units.length) {
+			throw new IOException("Unknown unit: " + unit);
+		}
+		return units[unit];
+	}
+}
@@ -0,0 +1,82 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+import java.lang.reflect.Field;
+
+import android.util.Log;
+
+/**
+ * Resolved (or known to be missing) public field. Obtained from
+ * {@link ReflectionCache}, so the lookup is done only once per field.
+ */
+public class FieldAccessor {
+	private final Field field;
+
+	FieldAccessor(Field field) {
+		this.field = field;
+	}
+
+	public boolean isAvailable() {
+		return field != null;
+	}
+
+	/** @param target object to read from, ignored for static fields */
+	public Object get(Object target) {
+		if (field == null) {
+			return null;
+		}
+		try {
+			return field.get(target);
+		} catch (Exception e) {
+			Log.e(Utils.LOGGER_TAG, "Can not read field " + field.getName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/** @return false if the field is missing or can not be written */
+	public boolean set(Object target, Object value) {
+		if (field == null) {
+			return false;
+		}
+		try {
+			field.set(target, value);
+			return true;
+		} catch (Exception e) {
+			Log.e(Utils.LOGGER_TAG, "Can not write field " + field.getName() + ": " + e.getMessage());
+			return false;
+		}
+	}
+
+	public String getString(Object target) {
+		Object value = get(target);
+		return (value instanceof String) ? (String) value : null;
+	}
+
+	public int getInt(Object target, int defaultValue) {
+		if (field == null) {
+			return defaultValue;
+		}
+		try {
+			return field.getInt(target);
+		} catch (Exception e) {
+			Log.e(Utils.LOGGER_TAG, "Can not read field " + field.getName() + ": " + e.getMessage());
+			return defaultValue;
+		}
+	}
+}
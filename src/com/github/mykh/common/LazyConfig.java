@@ -0,0 +1,58 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+import java.util.concurrent.Callable;
+
+import android.util.Log;
+
+/**
+ * Value computed the first time it is asked for and memoized afterwards, so
+ * items a formatter filters out (like the "*" ones) cost nothing. A supplier
+ * that throws gives a null value. Thread safe.
+ */
+public class LazyConfig extends Config {
+	private Callable<String> supplier;
+
+	public LazyConfig(String name, Callable<String> supplier, String hint) {
+		super(name, null, hint);
+		this.supplier = supplier;
+	}
+
+	public LazyConfig(String name, Callable<String> supplier) {
+		this(name, supplier, "");
+	}
+
+	public synchronized boolean isEvaluated() {
+		return supplier == null;
+	}
+
+	@Override
+	public synchronized String getValue() {
+		if (supplier != null) {
+			try {
+				value = supplier.call();
+			} catch (Exception e) {
+				Log.e(Utils.LOGGER_TAG, "Can not evaluate " + getName() + ": " + e);
+				value = null;
+			}
+			supplier = null; // also releases whatever the supplier holds
+		}
+		return value;
+	}
+}
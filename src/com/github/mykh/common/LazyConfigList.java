@@ -0,0 +1,98 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Section whose items are produced the first time they (or the state) are
+ * asked for, and memoized afterwards. A supplier that throws leaves the list
+ * empty in the {@link State#FAILED} state. Sealing before the evaluation is
+ * remembered and applied to the produced items. Thread safe.
+ */
+public class LazyConfigList extends ConfigList {
+	private Callable<List<ConfigBase>> supplier;
+	private boolean sealed = false;
+
+	public LazyConfigList(String name, Callable<List<ConfigBase>> supplier, String hint) {
+		super(name, hint);
+		this.supplier = supplier;
+	}
+
+	public LazyConfigList(String name, Callable<List<ConfigBase>> supplier) {
+		this(name, supplier, "");
+	}
+
+	public synchronized boolean isEvaluated() {
+		return supplier == null;
+	}
+
+	private void evaluate() {
+		if (supplier == null) {
+			return;
+		}
+		try {
+			List<ConfigBase> produced = supplier.call();
+			if (produced != null) {
+				items = new ArrayList<ConfigBase>(produced);
+			}
+		} catch (Exception e) {
+			items = new ArrayList<ConfigBase>();
+			super.setState(State.FAILED, e.toString());
+		}
+		supplier = null;
+		if (sealed) {
+			super.seal();
+		}
+	}
+
+	@Override
+	public synchronized List<ConfigBase> getItems() {
+		evaluate();
+		return items;
+	}
+
+	@Override
+	public synchronized State getState() {
+		evaluate();
+		return state;
+	}
+
+	@Override
+	public synchronized String getStateMessage() {
+		evaluate();
+		return stateMessage;
+	}
+
+	@Override
+	public synchronized void setState(State state, String message) {
+		super.setState(state, message);
+	}
+
+	@Override
+	public synchronized void seal() {
+		if (supplier == null) {
+			if (!sealed) {
+				super.seal();
+			}
+		}
+		sealed = true;
+	}
+}
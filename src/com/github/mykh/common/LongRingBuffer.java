@@ -0,0 +1,113 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+/**
+ * Fixed size history of samples kept in one primitive array. Every record has
+ * {@link #width()} columns; when the buffer is full the oldest record is
+ * overwritten. Adding never allocates.
+ * <p>
+ * Not thread safe.
+ */
+public class LongRingBuffer {
+	private final long[] data;
+	private final int capacity;
+	private final int width;
+	private int next = 0; // record index written by the next add
+	private int size = 0;
+
+	public LongRingBuffer(int capacity, int width) {
+		this.capacity = capacity;
+		this.width = width;
+		this.data = new long[capacity * width];
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public int width() {
+		return width;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		next = 0;
+		size = 0;
+	}
+
+	/** Appends the first {@link #width()} values of record. */
+	public void add(long[] record) {
+		System.arraycopy(record, 0, data, next * width, width);
+		next = (next + 1) % capacity;
+		if (size < capacity) {
+			size++;
+		}
+	}
+
+	/** Appends a record of a single column buffer. */
+	public void add(long value) {
+		data[next * width] = value;
+		next = (next + 1) % capacity;
+		if (size < capacity) {
+			size++;
+		}
+	}
+
+	/** @param index 0 is the oldest record, size() - 1 the latest one */
+	public long get(int index, int column) {
+		int record = (next - size + index + capacity) % capacity;
+		return data[record * width + column];
+	}
+
+	public long getLatest(int column) {
+		return get(size - 1, column);
+	}
+
+	public long min(int column) {
+		long result = Long.MAX_VALUE;
+		for (int i = 0; i < size; i++) {
+			result = Math.min(result, get(i, column));
+		}
+		return result;
+	}
+
+	public long max(int column) {
+		long result = Long.MIN_VALUE;
+		for (int i = 0; i < size; i++) {
+			result = Math.max(result, get(i, column));
+		}
+		return result;
+	}
+
+	public long sum(int column) {
+		long result = 0;
+		for (int i = 0; i < size; i++) {
+			result += get(i, column);
+		}
+		return result;
+	}
+
+	/** @return average of the column or 0 if the buffer is empty */
+	public long average(int column) {
+		return (size == 0) ? 0 : sum(column) / size;
+	}
+}
@@ -0,0 +1,69 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import android.util.Log;
+
+/**
+ * Resolved (or known to be missing) public method without parameters.
+ * Obtained from {@link ReflectionCache}, so the lookup is done only once per
+ * method.
+ */
+public class MethodAccessor {
+	private final Method method;
+
+	MethodAccessor(Method method) {
+		this.method = method;
+	}
+
+	public boolean isAvailable() {
+		return method != null;
+	}
+
+	/** @param target object to call the method on, ignored for static methods */
+	public Object invoke(Object target) {
+		if (method == null) {
+			return null;
+		}
+		try {
+			return method.invoke(target, (Object[]) null);
+		} catch (Exception e) {
+			Log.e(Utils.LOGGER_TAG, "Can not invoke " + method.getName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Calls a method with parameters. Failures are thrown, the cause of an
+	 * InvocationTargetException unwrapped.
+	 */
+	public Object invokeOrThrow(Object target, Object... args) throws Exception {
+		if (method == null) {
+			throw new NoSuchMethodException();
+		}
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			throw (cause instanceof Exception) ? (Exception) cause : e;
+		}
+	}
+}
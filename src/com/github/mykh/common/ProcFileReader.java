@@ -0,0 +1,187 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * Reader for /proc and /sys pseudo files that are read over and over again.
+ * The file is opened once and every {@link #read()} re-reads it from offset 0
+ * with positional reads into a direct buffer taken from a small pool, so a
+ * sample costs no open() and no allocations. The raw bytes are exposed as is;
+ * use {@link ProcParser} to scan them without decoding to a String.
+ * <p>
+ * A reader created without a path can still {@link #read(String)} other files
+ * into its buffer, e.g. one reader per thread for a scan over /proc/[pid].
+ * <p>
+ * Not thread safe.
+ */
+public class ProcFileReader {
+	private static final int DEFAULT_CAPACITY = 4 * Utils.KB;
+	private static final int MAX_POOLED_BUFFERS = 16;
+	private static final ArrayList<ByteBuffer> pool = new ArrayList<ByteBuffer>();
+
+	private final String path;
+	private FileInputStream stream;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private int length;
+
+	private static ByteBuffer acquireBuffer(int capacity) {
+		synchronized (pool) {
+			for (int i = pool.size() - 1; i >= 0; i--) {
+				if (pool.get(i).capacity() >= capacity) {
+					return pool.remove(i);
+				}
+			}
+		}
+		return ByteBuffer.allocateDirect(capacity);
+	}
+
+	private static void releaseBuffer(ByteBuffer buffer) {
+		synchronized (pool) {
+			if (pool.size() < MAX_POOLED_BUFFERS) {
+				pool.add(buffer);
+			}
+		}
+	}
+
+	public ProcFileReader(String path) {
+		this.path = path;
+	}
+
+	public ProcFileReader() {
+		this(null);
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public boolean isOpen() {
+		return channel != null;
+	}
+
+	public void open() throws IOException {
+		if (channel == null) {
+			stream = new FileInputStream(path);
+			channel = stream.getChannel();
+			if (buffer == null) {
+				buffer = acquireBuffer(DEFAULT_CAPACITY);
+			}
+		}
+	}
+
+	private void grow() {
+		ByteBuffer bigger = acquireBuffer(buffer.capacity() * 2);
+		buffer.flip();
+		bigger.clear();
+		bigger.put(buffer);
+		releaseBuffer(buffer);
+		buffer = bigger;
+	}
+
+	/**
+	 * Reads the whole file again, opening it on the first call. On failure the
+	 * file is closed, so the next call opens it again; a channel closed by an
+	 * interrupt would otherwise fail every later read.
+	 * 
+	 * @return number of bytes read, also available as {@link #getLength()}
+	 */
+	public int read() throws IOException {
+		try {
+			open();
+			return readFrom(channel);
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens otherPath, reads it into the buffer of this reader and closes it
+	 * again. The file of this reader, if any, stays open.
+	 */
+	public int read(String otherPath) throws IOException {
+		if (buffer == null) {
+			buffer = acquireBuffer(DEFAULT_CAPACITY);
+		}
+		FileInputStream otherStream = new FileInputStream(otherPath);
+		try {
+			return readFrom(otherStream.getChannel());
+		} finally {
+			otherStream.close();
+		}
+	}
+
+	private int readFrom(FileChannel source) throws IOException {
+		buffer.clear();
+		long position = 0;
+		int count;
+		while ((count = source.read(buffer, position)) >= 0) {
+			position += count;
+			if (!buffer.hasRemaining()) {
+				grow();
+			} else if (count == 0) {
+				break;
+			}
+		}
+		length = (int) position;
+		return length;
+	}
+
+	/** Content of the last read at absolute positions 0..{@link #getLength()}. */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public byte byteAt(int index) {
+		return buffer.get(index);
+	}
+
+	/** Decodes the content of the last read, allocates. */
+	public String getString() {
+		return ProcParser.toString(buffer, 0, length);
+	}
+
+	/** Closes the file and returns the buffer to the pool. Can be re-opened. */
+	public void close() {
+		if (stream != null) {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				// nothing to do
+			}
+		}
+		stream = null;
+		channel = null;
+		if (buffer != null) {
+			releaseBuffer(buffer);
+			buffer = null;
+		}
+		length = 0;
+	}
+}
@@ -0,0 +1,221 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+/**
+ * Single pass, allocation free scanner for the usual /proc and /sys formats.
+ * Works directly on the bytes read by {@link ProcFileReader} and reports spans
+ * of the buffer to a callback; only {@link #toString} allocates.
+ */
+public class ProcParser {
+	/** Treat ':' as a field separator too, e.g. for "eth0:123" in /proc/net/dev. */
+	public static final int SPLIT_ON_COLON = 1;
+
+	private static boolean isSpace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+
+	private static int findLineEnd(ByteBuffer buffer, int start, int length) {
+		int pos = start;
+		while (pos < length && buffer.get(pos) != '\n') {
+			pos++;
+		}
+		return pos;
+	}
+
+	public static void parseKeyValues(ByteBuffer buffer, int length, IKeyValueHandler handler) {
+		int lineStart = 0;
+		while (lineStart < length) {
+			int lineEnd = findLineEnd(buffer, lineStart, length);
+			int keyStart = skipSpaces(buffer, lineStart, lineEnd);
+			if (keyStart < lineEnd) {
+				int colon = indexOf(buffer, keyStart, lineEnd, (byte) ':');
+				if (colon < 0) {
+					handler.onKeyValue(buffer, keyStart, trimEnd(buffer, keyStart, lineEnd), lineEnd, lineEnd);
+				} else {
+					int valueStart = skipSpaces(buffer, colon + 1, lineEnd);
+					handler.onKeyValue(buffer, keyStart, trimEnd(buffer, keyStart, colon), valueStart,
+							trimEnd(buffer, valueStart, lineEnd));
+				}
+			}
+			lineStart = lineEnd + 1;
+		}
+	}
+
+	public static void parseKeyValues(ProcFileReader reader, IKeyValueHandler handler) {
+		parseKeyValues(reader.getBuffer(), reader.getLength(), handler);
+	}
+
+	/** @param flags 0 or {@link #SPLIT_ON_COLON} */
+	public static void parseFields(ByteBuffer buffer, int length, int flags, IFieldHandler handler) {
+		boolean splitOnColon = (flags & SPLIT_ON_COLON) != 0;
+		int line = 0;
+		int pos = 0;
+		while (pos < length) {
+			int lineEnd = findLineEnd(buffer, pos, length);
+			int field = 0;
+			while (pos < lineEnd) {
+				byte b = buffer.get(pos);
+				if (isSpace(b) || (splitOnColon && b == ':')) {
+					pos++;
+					continue;
+				}
+				int start = pos;
+				while (pos < lineEnd) {
+					b = buffer.get(pos);
+					if (isSpace(b) || (splitOnColon && b == ':')) {
+						break;
+					}
+					pos++;
+				}
+				handler.onField(line, field++, buffer, start, pos);
+			}
+			if (field > 0) {
+				handler.onLineEnd(line++, field);
+			}
+			pos = lineEnd + 1;
+		}
+	}
+
+	public static void parseFields(ProcFileReader reader, int flags, IFieldHandler handler) {
+		parseFields(reader.getBuffer(), reader.getLength(), flags, handler);
+	}
+
+	public static int skipSpaces(ByteBuffer buffer, int start, int end) {
+		while (start < end && isSpace(buffer.get(start))) {
+			start++;
+		}
+		return start;
+	}
+
+	public static int trimEnd(ByteBuffer buffer, int start, int end) {
+		while (end > start && isSpace(buffer.get(end - 1))) {
+			end--;
+		}
+		return end;
+	}
+
+	/** @return absolute position of value or -1 */
+	public static int indexOf(ByteBuffer buffer, int start, int end, byte value) {
+		for (int i = start; i < end; i++) {
+			if (buffer.get(i) == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Parses an optionally signed decimal number at the start of the span,
+	 * stopping at the first non-digit. Returns 0 if there are no digits.
+	 */
+	public static long parseLong(ByteBuffer buffer, int start, int end) {
+		int pos = skipSpaces(buffer, start, end);
+		boolean negative = false;
+		if (pos < end && buffer.get(pos) == '-') {
+			negative = true;
+			pos++;
+		}
+		long result = 0;
+		while (pos < end) {
+			int digit = buffer.get(pos) - '0';
+			if (digit < 0 || digit > 9) {
+				break;
+			}
+			result = result * 10 + digit;
+			pos++;
+		}
+		return negative ? -result : result;
+	}
+
+	/**
+	 * Parses a non-negative decimal fraction like "12.34" as a long scaled by
+	 * 10^decimals (1234 for decimals = 2). Extra digits are cut off.
+	 */
+	public static long parseFixed(ByteBuffer buffer, int start, int end, int decimals) {
+		int pos = skipSpaces(buffer, start, end);
+		long result = 0;
+		int fraction = -1; // digits seen after '.', -1 before it
+		while (pos < end && fraction < decimals) {
+			byte b = buffer.get(pos);
+			if (b == '.' && fraction < 0) {
+				fraction = 0;
+			} else if (b >= '0' && b <= '9') {
+				result = result * 10 + (b - '0');
+				if (fraction >= 0) {
+					fraction++;
+				}
+			} else {
+				break;
+			}
+			pos++;
+		}
+		for (int i = Math.max(fraction, 0); i < decimals; i++) {
+			result *= 10;
+		}
+		return result;
+	}
+
+	public static boolean isDigits(ByteBuffer buffer, int start, int end) {
+		if (start >= end) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			byte b = buffer.get(i);
+			if (b < '0' || b > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public static boolean equalsAscii(ByteBuffer buffer, int start, int end, String str) {
+		if (end - start != str.length()) {
+			return false;
+		}
+		return startsWithAscii(buffer, start, end, str);
+	}
+
+	public static boolean startsWithAscii(ByteBuffer buffer, int start, int end, String prefix) {
+		if (end - start < prefix.length()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (buffer.get(start + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Decodes the span as UTF-8, allocates. */
+	public static String toString(ByteBuffer buffer, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = start; i < end; i++) {
+			bytes[i - start] = buffer.get(i);
+		}
+		try {
+			return new String(bytes, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			return new String(bytes);
+		}
+	}
+}
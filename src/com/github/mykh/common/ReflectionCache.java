@@ -0,0 +1,122 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import android.util.Log;
+
+/**
+ * Memoizes reflective lookups. Each class and each (class, member) pair is
+ * resolved once; misses are remembered too, so they are logged once instead of
+ * throwing on every refresh. Thread safe.
+ */
+public class ReflectionCache {
+	private static final Class<?> MISSING_CLASS = Void.class;
+	private static final FieldAccessor MISSING_FIELD = new FieldAccessor(null);
+	private static final MethodAccessor MISSING_METHOD = new MethodAccessor(null);
+
+	private static final ConcurrentHashMap<String, Class<?>> classes = new ConcurrentHashMap<String, Class<?>>();
+	private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, FieldAccessor>> fields = new ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, FieldAccessor>>();
+	private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, MethodAccessor>> methods = new ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, MethodAccessor>>();
+
+	/** @return the class or null if it does not exist */
+	public static Class<?> findClass(String className) {
+		Class<?> result = classes.get(className);
+		if (result == null) {
+			try {
+				result = Class.forName(className);
+			} catch (ClassNotFoundException e) {
+				Log.e(Utils.LOGGER_TAG, "Class not found: " + className);
+				result = MISSING_CLASS;
+			}
+			classes.put(className, result);
+		}
+		return (result == MISSING_CLASS) ? null : result;
+	}
+
+	private static <T> ConcurrentHashMap<String, T> membersOf(
+			ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, T>> cache, Class<?> _class) {
+		ConcurrentHashMap<String, T> members = cache.get(_class);
+		if (members == null) {
+			members = new ConcurrentHashMap<String, T>();
+			ConcurrentHashMap<String, T> existing = cache.putIfAbsent(_class, members);
+			if (existing != null) {
+				members = existing;
+			}
+		}
+		return members;
+	}
+
+	public static FieldAccessor field(Class<?> _class, String fieldName) {
+		if (_class == null) {
+			return MISSING_FIELD;
+		}
+		ConcurrentHashMap<String, FieldAccessor> members = membersOf(fields, _class);
+		FieldAccessor result = members.get(fieldName);
+		if (result == null) {
+			try {
+				result = new FieldAccessor(_class.getField(fieldName));
+			} catch (Exception e) {
+				Log.e(Utils.LOGGER_TAG, "No field " + _class.getName() + "." + fieldName);
+				result = MISSING_FIELD;
+			}
+			members.put(fieldName, result);
+		}
+		return result;
+	}
+
+	public static FieldAccessor field(String className, String fieldName) {
+		return field(findClass(className), fieldName);
+	}
+
+	private static MethodAccessor method(Class<?> _class, String key, String methodName, Class<?>[] parameterTypes) {
+		if (_class == null) {
+			return MISSING_METHOD;
+		}
+		ConcurrentHashMap<String, MethodAccessor> members = membersOf(methods, _class);
+		MethodAccessor result = members.get(key);
+		if (result == null) {
+			try {
+				result = new MethodAccessor(_class.getMethod(methodName, parameterTypes));
+			} catch (Exception e) {
+				Log.e(Utils.LOGGER_TAG, "No method " + _class.getName() + "." + key);
+				result = MISSING_METHOD;
+			}
+			members.put(key, result);
+		}
+		return result;
+	}
+
+	public static MethodAccessor method(Class<?> _class, String methodName) {
+		return method(_class, methodName, methodName, null);
+	}
+
+	/** Looks up a method with parameters, meant to be resolved once and kept. */
+	public static MethodAccessor method(Class<?> _class, String methodName, Class<?>... parameterTypes) {
+		StringBuilder key = new StringBuilder(methodName).append('(');
+		for (int i = 0; i < parameterTypes.length; i++) {
+			key.append((i == 0) ? "" : ",").append(parameterTypes[i].getName());
+		}
+		return method(_class, key.append(')').toString(), methodName, parameterTypes);
+	}
+
+	public static MethodAccessor method(String className, String methodName) {
+		return method(findClass(className), methodName);
+	}
+}
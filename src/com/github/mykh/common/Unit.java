@@ -0,0 +1,62 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.common;
+
+/**
+ * Unit of a typed config value. Values are kept as numbers and only turned
+ * into text when a formatter asks for it.
+ */
+public enum Unit {
+	NONE(""), BYTES("B"), KILOBYTES("kB"), PERCENT("%"), CELSIUS("°C"), VOLTS("V"), MILLIAMPS("mA"), MILLISECONDS(
+			"ms");
+
+	private static final String[] FORMATS = { "%.0f", "%.1f", "%.2f", "%.3f", "%.4f" };
+
+	private final String symbol;
+
+	private Unit(String symbol) {
+		this.symbol = symbol;
+	}
+
+	public String getSymbol() {
+		return symbol;
+	}
+
+	private String withSymbol(String number) {
+		if (this == NONE) {
+			return number;
+		}
+		return (this == PERCENT || this == CELSIUS || this == VOLTS) ? number + symbol : number + " " + symbol;
+	}
+
+	public String format(long value) {
+		if (this == BYTES) {
+			return Utils.formatBytes(value);
+		}
+		return withSymbol(Long.toString(value));
+	}
+
+	/** @param decimals 0 to 4 */
+	public String format(double value, int decimals) {
+		if (this == BYTES) {
+			return Utils.formatBytes((long) value);
+		}
+		String format = FORMATS[Math.max(0, Math.min(decimals, FORMATS.length - 1))];
+		return withSymbol(String.format(Utils.locale, format, value));
+	}
+}
@@ -23,8 +23,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.util.List;
 import java.util.Locale;
 
 import android.util.Log;
@@ -36,6 +34,24 @@ public class Utils {
 	public static final int MB = 1024 * 1024;
 	public static final Locale locale = Locale.getDefault();
 	
+	public static String formatBytes(long bytes) {
+		if (bytes >= 1024L * MB) {
+			return String.format(locale, "%.2f GB", bytes / (1024.0 * MB));
+		} else if (bytes >= MB) {
+			return String.format(locale, "%.1f MB", bytes / (double) MB);
+		} else {
+			return String.format(locale, "%.1f KB", bytes / (double) KB);
+		}
+	}
+
+	/** Formats a duration in ms like "3d 04:05:06". */
+	public static String formatDuration(long millis) {
+		long seconds = millis / 1000;
+		long days = seconds / 86400;
+		String time = String.format(locale, "%02d:%02d:%02d", (seconds / 3600) % 24, (seconds / 60) % 60, seconds % 60);
+		return (days > 0) ? days + "d " + time : time;
+	}
+
 	public static String dumpObject(Object o) {
 		StringBuilder buffer = new StringBuilder();
 		Class<?> oClass = o.getClass();
@@ -107,67 +123,30 @@ public class Utils {
 	}
 
 	public static int getClassFieldInt(String className, String fieldName, int defaultValue) {
-		try {
-			Field field = Class.forName(className).getField(fieldName);
-			int val = field.getInt(field);
-			return val;
-		} catch (Exception e) {
-			Log.e(LOGGER_TAG, e.getMessage());
-			return defaultValue;
-		}
+		return ReflectionCache.field(className, fieldName).getInt(null, defaultValue);
 	}
 	
 	public static String getClassFieldStrOrNull(Class<?> _class, String fieldName) {
-		try {
-			Field filed = _class.getField(fieldName);
-			String str = (String) filed.get(filed);
-			return str;
-		} catch (Exception e) {
-			Log.e(LOGGER_TAG, e.getMessage());
-			return null;
-		}
+		return ReflectionCache.field(_class, fieldName).getString(null);
 	}
 
 	public static String getClassFieldStrOrNull(String className, String fieldName) {
-		try
-		{
-		  Class<?> _class = Class.forName(className);
-		  return getClassFieldStrOrNull(_class, fieldName);
-	    } catch (Exception e) {
-	    	Log.e(LOGGER_TAG, e.getMessage());
-	    	return null;
-	    }
+		return ReflectionCache.field(className, fieldName).getString(null);
 	}
 	
 	public static Object invokeObjectMethodObjectOrNull(Object obj, String methodName) {
-		try {
-			Method method = obj.getClass().getMethod(methodName, (Class[]) null);
-			Object res = method.invoke(obj, (Object[]) null);
-			return res;
-		} catch (Exception e) {
-			Log.e(LOGGER_TAG, e.getMessage());
+		if (obj == null) {
 			return null;
 		}
+		return ReflectionCache.method(obj.getClass(), methodName).invoke(obj);
 	}
 
 	public static Object invokeClassMethodObjectOrNull(String className, String methodName) {
-		try {
-			return invokeClassMethodObjectOrNull(Class.forName(className), methodName);
-		} catch (ClassNotFoundException e) {
-			Log.e(LOGGER_TAG, e.getMessage());
-			return null;
-		}
+		return ReflectionCache.method(className, methodName).invoke(null);
 	}
 	
 	public static Object invokeClassMethodObjectOrNull(Class<?> _class, String methodName) {
-		try {
-			Method method = _class.getMethod(methodName, (Class[]) null);
-			Object res = method.invoke(_class, (Object[]) null);
-			return res;
-		} catch (Exception e) {
-			Log.e(LOGGER_TAG, e.getMessage());
-			return null;
-		}
+		return ReflectionCache.method(_class, methodName).invoke(null);
 	}
 
 	public static String invokeClassMethodStrOrNull(String className, String methodName) {
@@ -192,21 +171,4 @@ public class Utils {
 		}
 		return fileData.toString();
 	}
-	
-	public static void parseConfString(String content, List<String> names, List<String> values) {
-		final String valueDelimiter = ":";
-		names.clear();
-		values.clear();
-		String[] lines = content.split("[\\r?\\n]+");
-		for (String line : lines) {
-			String[] param = line.split(valueDelimiter, 2);
-			if (param.length == 2) {
-				names.add(param[0].trim());
-				values.add(param[1].trim());
-			} else {
-				names.add(line);
-				values.add("");
-			}
-		}
-	}
 }
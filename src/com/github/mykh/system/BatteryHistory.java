@@ -0,0 +1,114 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import com.github.mykh.common.AtomicLongRingBuffer;
+import com.github.mykh.common.LongRingBuffer;
+import com.github.mykh.common.Utils;
+
+/**
+ * Battery samples of one source over time, one record per change. Written by
+ * the source only, read lock-free from any thread.
+ */
+public class BatteryHistory {
+	public static final int DEFAULT_SIZE = 256;
+	/** Shortest unplugged span a discharge rate is estimated from. */
+	public static final long MIN_RATE_SPAN = 5 * 60 * 1000; // ms
+
+	// columns
+	public static final int TIME = 0; // SystemClock.elapsedRealtime()
+	public static final int LEVEL = 1; // basis points
+	public static final int VOLTAGE = 2; // mV
+	public static final int TEMPERATURE = 3; // tenths of °C
+	public static final int PLUGGED = 4;
+	public static final int WIDTH = 5;
+
+	private final AtomicLongRingBuffer history;
+	private final long[] record = new long[WIDTH];
+	private LongRingBuffer scratch; // reused by getDischargeRate(), guarded by this
+
+	public BatteryHistory(int size) {
+		history = new AtomicLongRingBuffer(size, WIDTH);
+	}
+
+	public BatteryHistory() {
+		this(DEFAULT_SIZE);
+	}
+
+	/** Single writer only. */
+	public void add(BatterySample sample) {
+		record[TIME] = sample.getTime();
+		record[LEVEL] = sample.getLevelBasisPoints();
+		record[VOLTAGE] = sample.getVoltage();
+		record[TEMPERATURE] = sample.getTemperature();
+		record[PLUGGED] = sample.getPlugged();
+		history.add(record);
+	}
+
+	/** Replaces the content of dest (width {@link #WIDTH}) with the history. */
+	public void copyTo(LongRingBuffer dest) {
+		history.copyTo(dest);
+	}
+
+	/**
+	 * Average discharge in basis points of the level per hour since the device
+	 * was unplugged, or -1 while plugged or if the span is still too short.
+	 * Copies the history, so compute it once per refresh and pass it to
+	 * {@link #formatDischargeRate} and {@link #formatTimeRemaining}.
+	 */
+	public synchronized long getDischargeRate() {
+		if (scratch == null) {
+			scratch = new LongRingBuffer(history.capacity(), WIDTH);
+		}
+		LongRingBuffer samples = scratch;
+		history.copyTo(samples);
+		int last = samples.size() - 1;
+		if (last < 0 || samples.get(last, PLUGGED) != 0) {
+			return -1;
+		}
+		int first = last;
+		while (first > 0 && samples.get(first - 1, PLUGGED) == 0) {
+			first--;
+		}
+		long span = samples.get(last, TIME) - samples.get(first, TIME);
+		long drop = samples.get(first, LEVEL) - samples.get(last, LEVEL);
+		if (span < MIN_RATE_SPAN || drop <= 0) {
+			return -1;
+		}
+		return drop * 3600000 / span;
+	}
+
+	/** @param rate from {@link #getDischargeRate} */
+	public static String formatDischargeRate(long rate) {
+		return (rate < 0) ? null : String.format(Utils.locale, "%.1f%%/h", rate / 100.0);
+	}
+
+	/**
+	 * Time until empty from the level of sample at the given discharge rate.
+	 * 
+	 * @param rate from {@link #getDischargeRate}
+	 */
+	public static String formatTimeRemaining(long rate, BatterySample sample) {
+		int level = sample.getLevelBasisPoints();
+		if (rate <= 0 || level < 0) {
+			return null;
+		}
+		long minutes = level * 60L / rate;
+		return String.format(Utils.locale, "%dh %02dm", minutes / 60, minutes % 60);
+	}
+}
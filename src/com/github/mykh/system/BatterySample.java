@@ -0,0 +1,290 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.util.List;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigBoolean;
+import com.github.mykh.common.ConfigDouble;
+import com.github.mykh.common.ConfigEnum;
+import com.github.mykh.common.ConfigLong;
+import com.github.mykh.common.ConfigSchema;
+import com.github.mykh.common.Unit;
+import com.github.mykh.common.Utils;
+
+import android.util.Log;
+
+/**
+ * Battery state from one ACTION_BATTERY_CHANGED broadcast or one sysfs read.
+ * Immutable, so a reader that got a sample never mixes values of two updates.
+ */
+public class BatterySample {
+	// Newer than API 3; the values are fixed, no need to look them up at run time.
+	static final int BATTERY_HEALTH_COLD = 7; // BatteryManager, API 11
+	static final int BATTERY_PLUGGED_WIRELESS = 4; // BatteryManager, API 17
+
+	/** Value of current and charge counter when the source does not report them. */
+	public static final int UNKNOWN = Integer.MIN_VALUE;
+
+	/** Placeholder until the first broadcast arrives. */
+	public static final BatterySample EMPTY = new BatterySample(0, -1, -1, -1, -1, null, -1, -1, null, -1, -1, UNKNOWN,
+			UNKNOWN);
+
+	private final long time; // SystemClock.elapsedRealtime()
+	private final int health;
+	private final int iconSmall;
+	private final int level;
+	private final int plugged;
+	private final Boolean present;
+	private final int scale;
+	private final int status;
+	private final String technology;
+	private final int temperature;
+	private final int voltage; // mV
+	private final int current; // µA, the sign convention depends on the driver
+	private final int chargeCounter; // µAh
+
+	public BatterySample(long time, int health, int iconSmall, int level, int plugged, Boolean present, int scale,
+			int status, String technology, int temperature, int voltage, int current, int chargeCounter) {
+		this.time = time;
+		this.health = health;
+		this.iconSmall = iconSmall;
+		this.level = level;
+		this.plugged = plugged;
+		this.present = present;
+		this.scale = scale;
+		this.status = status;
+		this.technology = technology;
+		this.temperature = temperature;
+		this.voltage = voltage;
+		this.current = current;
+		this.chargeCounter = chargeCounter;
+	}
+
+	public long getTime() {
+		return time;
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	/** Level in basis points of the scale, -1 if unknown. */
+	public int getLevelBasisPoints() {
+		if (level == -1) {
+			return -1;
+		}
+		return (scale <= 0) ? level * 100 : (int) (10000L * level / scale);
+	}
+
+	public int getPlugged() {
+		return plugged;
+	}
+
+	public int getTemperature() {
+		return temperature;
+	}
+
+	public int getVoltage() {
+		return voltage;
+	}
+
+	public int getCurrent() {
+		return current;
+	}
+
+	public int getChargeCounter() {
+		return chargeCounter;
+	}
+
+	private static final ConfigSchema HEALTH = ConfigSchema.of("Health");
+	private static final ConfigSchema LEVEL = ConfigSchema.of("Level");
+	private static final ConfigSchema PLUGGED = ConfigSchema.of("Plugged");
+	private static final ConfigSchema PRESENT = ConfigSchema.of("Present");
+	private static final ConfigSchema STATUS = ConfigSchema.of("Status");
+	private static final ConfigSchema TECHNOLOGY = ConfigSchema.of("Technology");
+	private static final ConfigSchema TEMPERATURE = ConfigSchema.of("Temperature");
+	private static final ConfigSchema VOLTAGE = ConfigSchema.of("Voltage");
+	private static final ConfigSchema CURRENT = ConfigSchema.of("Current");
+
+	/** Adds the state as typed values; unknown ones are added without a value. */
+	public void addConfigs(List<ConfigBase> items) {
+		items.add((health == -1) ? new Config(HEALTH, null) : new ConfigEnum(HEALTH, health, getHealthStr()));
+		if (level == -1) {
+			items.add(new Config(LEVEL, null));
+		} else if (scale <= 0) {
+			items.add(new ConfigLong(LEVEL, level, Unit.NONE));
+		} else {
+			items.add(new ConfigDouble(LEVEL, 100.0 * level / scale, ((scale == 10) || (scale == 100)) ? 0 : 2,
+					Unit.PERCENT));
+		}
+		items.add((plugged == -1) ? new Config(PLUGGED, null) : new ConfigEnum(PLUGGED, plugged, getPluggedStr()));
+		items.add((present == null) ? new Config(PRESENT, null) : new ConfigBoolean(PRESENT, present));
+		items.add((status == -1) ? new Config(STATUS, null) : new ConfigEnum(STATUS, status, getStatusStr()));
+		items.add(new Config(TECHNOLOGY, technology));
+		items.add((temperature == -1) ? new Config(TEMPERATURE, null) : new ConfigDouble(TEMPERATURE,
+				temperature / 10.0, 1, Unit.CELSIUS)); // tenths of a degree
+		items.add((voltage == -1) ? new Config(VOLTAGE, null) : new ConfigDouble(VOLTAGE, voltage / 1000.0, 4,
+				Unit.VOLTS));
+		items.add((current == UNKNOWN) ? new Config(CURRENT, null) : new ConfigDouble(CURRENT, current / 1000.0, 1,
+				Unit.MILLIAMPS));
+	}
+
+	public String getHealthStr() {
+		//android.os.BatteryManager.BATTERY_HEALTH
+		switch (health) {
+		case android.os.BatteryManager.BATTERY_HEALTH_DEAD:
+			return "dead";
+		case android.os.BatteryManager.BATTERY_HEALTH_GOOD:
+			return "good";
+		case android.os.BatteryManager.BATTERY_HEALTH_OVERHEAT:
+			return "overheat";
+		case android.os.BatteryManager.BATTERY_HEALTH_OVER_VOLTAGE:
+			return "over voltage";
+		case android.os.BatteryManager.BATTERY_HEALTH_UNKNOWN:
+			return "unknown";
+		case android.os.BatteryManager.BATTERY_HEALTH_UNSPECIFIED_FAILURE:
+			return "unspecified failure";
+		default:
+			if (health == BATTERY_HEALTH_COLD) {
+				return "cold";
+			} else {
+				Log.w(getClass().getName(), "Unknown health. value = " + Integer.toString(health));
+				return null;
+			}
+		}
+	}
+
+	public int getIconSmall() {
+		return iconSmall;
+	}
+
+	public String getLevelStr() {
+		if (level == -1) {
+			return null;
+		} else if (scale <= 0) {
+			return Integer.toString(level);
+		} else {
+			double value = 100.0 * (double) level / (double) scale;
+			if ((scale == 10) || (scale == 100)) {
+				return String.format(Utils.locale, "%3.0f%%", value);
+			} else {
+				return String.format(Utils.locale, "%5.2f%%", value);
+			}
+		}
+	}
+
+	public String getPluggedStr() {
+		switch (plugged) {
+		case 0:
+			return "no"; // On battery.
+		case android.os.BatteryManager.BATTERY_PLUGGED_AC:
+			return "AC"; // Power source is an AC charger.
+		case android.os.BatteryManager.BATTERY_PLUGGED_USB:
+			return "USB"; // Power source is a USB port.
+		default:
+			if (plugged == BATTERY_PLUGGED_WIRELESS) {
+				return "wireless";
+			}
+			Log.w(getClass().getName(), "Unknown plugged. value = " + Integer.toString(plugged));
+			return null;
+		}
+	}
+
+	public String getPresentStr() {
+		if (present == null) {
+			return null;
+		} else {
+			return present ? "yes" : "no";
+		}
+	}
+
+	public int getScale() {
+		return scale;
+	}
+
+	public String getStatusStr() {
+		switch (status) {
+		case -1:
+			return null;
+		case android.os.BatteryManager.BATTERY_STATUS_CHARGING:
+			return "charging";
+		case android.os.BatteryManager.BATTERY_STATUS_DISCHARGING:
+			return "discharging";
+		case android.os.BatteryManager.BATTERY_STATUS_FULL:
+			return "full";
+		case android.os.BatteryManager.BATTERY_STATUS_NOT_CHARGING:
+			return "not charging";
+		case android.os.BatteryManager.BATTERY_STATUS_UNKNOWN:
+			return "unknown";
+		default:
+			Log.w(getClass().getName(), "Unknown status. value = " + Integer.toString(status));
+			return null;
+		}
+	}
+
+	public String getTechnology() {
+		return technology;
+	}
+
+	public String getTemperatureStr() {
+		if (temperature == -1) {
+			return null;
+		} else {
+			double c = temperature / 10.0; // EXTRA_TEMPERATURE and sysfs temp are in tenths of a degree
+			double f = (9.0 * c) / 5.0 + 32.0;
+			return String.format(Utils.locale, "%4.1f°C (%4.1f°F)", c, f);
+		}
+	}
+
+	public String getVoltageStr() {
+		if (voltage == -1) {
+			return null;
+		} else {
+			return String.format(Utils.locale, "%5.4fV", voltage / 1000.0); // TODO: show in V, mV
+		}
+	}
+
+	public String getCurrentStr() {
+		if (current == UNKNOWN) {
+			return null;
+		} else {
+			return String.format(Utils.locale, "%.1f mA", current / 1000.0);
+		}
+	}
+
+	public String getChargeCounterStr() {
+		if (chargeCounter == UNKNOWN) {
+			return null;
+		} else {
+			return String.format(Utils.locale, "%.0f mAh", chargeCounter / 1000.0);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "health=" + Integer.toString(health) + ", " + "iconSmall=" + Integer.toString(iconSmall)
+				+ ", " + "level=" + Integer.toString(level) + ", " + "plugged=" + Integer.toString(plugged) + ", "
+				+ "present=" + present + ", " + "scale=" + Integer.toString(scale) + ", "
+				+ "status=" + Integer.toString(status) + ", " + "technology=" + technology + ", " + "temperature="
+				+ Integer.toString(temperature) + ", " + "voltage=" + Integer.toString(voltage) + ", " + "current="
+				+ Integer.toString(current) + ", " + "chargeCounter=" + Integer.toString(chargeCounter);
+	}
+}
@@ -0,0 +1,271 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.IFieldHandler;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.Utils;
+
+/**
+ * Per-core frequency residency from /sys/devices/system/cpu/cpuN/cpufreq
+ * (scaling_cur_freq, stats/time_in_state, stats/total_trans). Residency is kept
+ * in primitive arrays per core and reported both since boot and as the delta
+ * of the last sampling interval. Offline cores are detected through their
+ * "online" file; cores with missing nodes are only probed again every
+ * {@link #PROBE_INTERVAL} with File.exists(), so a missing or hot-unplugged
+ * core does not cost an exception per tick.
+ */
+public class CpuFreqSampler extends PeriodicSampler implements IFieldHandler {
+	public static final long PROBE_INTERVAL = 10000; // ms
+	public static final String CPU_DIR = "/sys/devices/system/cpu";
+
+	private static class Core {
+		final int cpu;
+		final String dir;
+		ProcFileReader online;
+		ProcFileReader curFreq;
+		ProcFileReader timeInState;
+		ProcFileReader totalTrans;
+		boolean available = false;
+		boolean isOnline = false;
+		long nextProbe = 0; // ns
+		long frequency = -1; // kHz
+		long transitions = -1;
+		long transitionsDelta = 0;
+		boolean hasPrevious = false;
+		int stateCount = 0;
+		long[] frequencies = new long[16]; // kHz
+		long[] times = new long[16]; // 10 ms units since boot
+		long[] previousTimes = new long[16];
+		long[] deltas = new long[16];
+
+		Core(String cpuDir, int cpu) {
+			this.cpu = cpu;
+			this.dir = cpuDir + "/cpu" + cpu;
+		}
+
+		void ensureStates(int count) {
+			if (count <= frequencies.length) {
+				return;
+			}
+			int capacity = Math.max(count, frequencies.length * 2);
+			long[] newFrequencies = new long[capacity];
+			long[] newTimes = new long[capacity];
+			// keep the rows parsed so far in this pass, stateCount is 0 on the first one
+			int keep = Math.max(stateCount, count - 1);
+			System.arraycopy(frequencies, 0, newFrequencies, 0, keep);
+			System.arraycopy(times, 0, newTimes, 0, keep);
+			frequencies = newFrequencies;
+			times = newTimes;
+			previousTimes = new long[capacity];
+			deltas = new long[capacity];
+			hasPrevious = false;
+		}
+
+		void close() {
+			for (ProcFileReader reader : new ProcFileReader[] { online, curFreq, timeInState, totalTrans }) {
+				if (reader != null) {
+					reader.close();
+				}
+			}
+			online = curFreq = timeInState = totalTrans = null;
+			available = false;
+			hasPrevious = false;
+		}
+	}
+
+	private final String cpuDir;
+	private final List<Core> cores = new ArrayList<Core>();
+	private boolean discovered = false;
+	private Core parsing;
+	private int parsedStates;
+	private boolean layoutChanged;
+
+	/** @param cpuDir normally {@link #CPU_DIR} */
+	public CpuFreqSampler(String cpuDir) {
+		super("CPU Frequency");
+		this.cpuDir = cpuDir;
+	}
+
+	public CpuFreqSampler() {
+		this(CPU_DIR);
+	}
+
+	private static ProcFileReader openIfExists(String path) {
+		return new File(path).exists() ? new ProcFileReader(path) : null;
+	}
+
+	private void discover() {
+		discovered = true;
+		String[] entries = new File(cpuDir).list();
+		if (entries == null) {
+			return;
+		}
+		for (String entry : entries) {
+			if (entry.length() > 3 && entry.startsWith("cpu") && Character.isDigit(entry.charAt(3))) {
+				try {
+					cores.add(new Core(cpuDir, Integer.parseInt(entry.substring(3))));
+				} catch (NumberFormatException e) {
+					// e.g. "cpufreq", "cpuidle"
+				}
+			}
+		}
+		Collections.sort(cores, new Comparator<Core>() {
+			public int compare(Core a, Core b) {
+				return a.cpu - b.cpu;
+			}
+		});
+	}
+
+	private static void probe(Core core, long now) {
+		core.nextProbe = now + TimeUnit.MILLISECONDS.toNanos(PROBE_INTERVAL);
+		core.online = openIfExists(core.dir + "/online"); // cpu0 usually has none
+		core.curFreq = openIfExists(core.dir + "/cpufreq/scaling_cur_freq");
+		core.timeInState = openIfExists(core.dir + "/cpufreq/stats/time_in_state");
+		core.totalTrans = openIfExists(core.dir + "/cpufreq/stats/total_trans");
+		core.available = (core.curFreq != null || core.timeInState != null);
+	}
+
+	private static boolean read(ProcFileReader reader) throws IOException {
+		return reader != null && reader.read() > 0;
+	}
+
+	@Override
+	protected void sample() {
+		if (!discovered) {
+			discover();
+		}
+		long now = System.nanoTime();
+		for (Core core : cores) {
+			if (!core.available) {
+				if (now - core.nextProbe < 0) {
+					continue;
+				}
+				probe(core, now);
+				if (!core.available) {
+					continue;
+				}
+			}
+			try {
+				if (read(core.online)) {
+					core.isOnline = core.online.byteAt(0) != '0';
+				} else {
+					core.isOnline = true;
+				}
+				if (!core.isOnline) {
+					core.hasPrevious = false;
+					continue;
+				}
+				core.frequency = read(core.curFreq) ? ProcParser.parseLong(core.curFreq.getBuffer(), 0,
+						core.curFreq.getLength()) : -1;
+				if (read(core.totalTrans)) {
+					long transitions = ProcParser.parseLong(core.totalTrans.getBuffer(), 0, core.totalTrans.getLength());
+					core.transitionsDelta = (core.hasPrevious) ? transitions - core.transitions : 0;
+					core.transitions = transitions;
+				}
+				if (read(core.timeInState)) {
+					parsing = core;
+					parsedStates = 0;
+					layoutChanged = false;
+					ProcParser.parseFields(core.timeInState, 0, this);
+					if (parsedStates != core.stateCount) {
+						core.stateCount = parsedStates;
+						layoutChanged = true;
+					}
+					for (int i = 0; i < core.stateCount; i++) {
+						core.deltas[i] = (core.hasPrevious && !layoutChanged) ? core.times[i] - core.previousTimes[i] : 0;
+					}
+					System.arraycopy(core.times, 0, core.previousTimes, 0, core.stateCount);
+				}
+				core.hasPrevious = true;
+			} catch (IOException e) {
+				// The node went away (core unplugged on an old kernel), probe again later.
+				core.close();
+				core.nextProbe = now + TimeUnit.MILLISECONDS.toNanos(PROBE_INTERVAL);
+			}
+		}
+	}
+
+	public void onField(int line, int field, ByteBuffer buffer, int start, int end) {
+		Core core = parsing;
+		if (field == 0) {
+			core.ensureStates(line + 1);
+			long frequency = ProcParser.parseLong(buffer, start, end);
+			if (line >= core.stateCount || core.frequencies[line] != frequency) {
+				core.frequencies[line] = frequency;
+				layoutChanged = true;
+			}
+		} else if (field == 1) {
+			core.times[line] = ProcParser.parseLong(buffer, start, end);
+		}
+	}
+
+	public void onLineEnd(int line, int fieldCount) {
+		parsedStates = line + 1;
+	}
+
+	private static String percent(long part, long total) {
+		return (total <= 0) ? "-" : String.format(Utils.locale, "%.1f%%", part * 100.0 / total);
+	}
+
+	@Override
+	protected ConfigList buildSection() {
+		ConfigList freq = new ConfigList(getName(), "Residency: share of the last interval / share since boot.");
+		List<ConfigBase> items = freq.getItems();
+		for (Core core : cores) {
+			ConfigList coreList = new ConfigList("cpu" + core.cpu);
+			List<ConfigBase> coreItems = coreList.getItems();
+			if (!core.available) {
+				coreItems.add(new Config("State", "no cpufreq data"));
+			} else if (!core.isOnline) {
+				coreItems.add(new Config("State", "offline"));
+			} else {
+				coreItems.add(new Config("Current", (core.frequency < 0) ? null : String.format(Utils.locale,
+						"%d MHz", core.frequency / 1000)));
+				if (core.transitions >= 0) {
+					coreItems.add(new Config("Transitions", core.transitions + " (+" + core.transitionsDelta + ")"));
+				}
+				long totalTime = 0;
+				long totalDelta = 0;
+				for (int i = 0; i < core.stateCount; i++) {
+					totalTime += core.times[i];
+					totalDelta += core.deltas[i];
+				}
+				for (int i = 0; i < core.stateCount; i++) {
+					coreItems.add(new Config(String.format(Utils.locale, "%d MHz", core.frequencies[i] / 1000),
+							percent(core.deltas[i], totalDelta) + " / " + percent(core.times[i], totalTime)));
+				}
+			}
+			items.add(coreList);
+		}
+		return freq;
+	}
+}
@@ -0,0 +1,180 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.IFieldHandler;
+import com.github.mykh.common.LongRingBuffer;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.Utils;
+
+/**
+ * Aggregate and per-core CPU utilization computed from jiffy deltas between
+ * two reads of /proc/stat. The last {@link #HISTORY_SIZE} samples of every core
+ * are kept as basis points (1/100 of percent) in the columns
+ * {@link #USER}, {@link #SYSTEM}, {@link #IOWAIT}, {@link #IRQ} and
+ * {@link #IDLE}. A tick does not allocate once all cores have been seen.
+ */
+public class CpuUsageSampler extends PeriodicSampler implements IFieldHandler {
+	public static final int HISTORY_SIZE = 60;
+
+	public static final int USER = 0; // user + nice
+	public static final int SYSTEM = 1;
+	public static final int IOWAIT = 2;
+	public static final int IRQ = 3; // irq + softirq
+	public static final int IDLE = 4;
+	private static final int COLUMNS = 5;
+
+	// user nice system idle iowait irq softirq steal, guest time is already part of user
+	private static final int JIFFY_FIELDS = 8;
+
+	private final ProcFileReader reader = new ProcFileReader("/proc/stat");
+	// index 0 is the aggregate "cpu" line, index n + 1 is "cpuN"
+	private long[][] previous = new long[0][];
+	private boolean[] seen = new boolean[0];
+	private LongRingBuffer[] history = new LongRingBuffer[0];
+	private final long[] current = new long[JIFFY_FIELDS];
+	private final long[] record = new long[COLUMNS];
+	private int lineIndex;
+
+	public CpuUsageSampler() {
+		super("CPU Usage");
+	}
+
+	private void ensureCapacity(int index) {
+		if (index < previous.length) {
+			return;
+		}
+		int count = index + 1;
+		long[][] newPrevious = new long[count][];
+		boolean[] newSeen = new boolean[count];
+		LongRingBuffer[] newHistory = new LongRingBuffer[count];
+		System.arraycopy(previous, 0, newPrevious, 0, previous.length);
+		System.arraycopy(seen, 0, newSeen, 0, seen.length);
+		System.arraycopy(history, 0, newHistory, 0, history.length);
+		for (int i = previous.length; i < count; i++) {
+			newPrevious[i] = new long[JIFFY_FIELDS];
+			newHistory[i] = new LongRingBuffer(HISTORY_SIZE, COLUMNS);
+		}
+		previous = newPrevious;
+		seen = newSeen;
+		history = newHistory;
+	}
+
+	@Override
+	protected void sample() throws IOException {
+		reader.read();
+		ProcParser.parseFields(reader, 0, this);
+	}
+
+	public void onField(int line, int field, ByteBuffer buffer, int start, int end) {
+		if (field == 0) {
+			lineIndex = -1;
+			if (ProcParser.startsWithAscii(buffer, start, end, "cpu")) {
+				lineIndex = (end - start == 3) ? 0 : (int) ProcParser.parseLong(buffer, start + 3, end) + 1;
+				for (int i = 0; i < JIFFY_FIELDS; i++) {
+					current[i] = 0;
+				}
+			}
+		} else if (lineIndex >= 0 && field <= JIFFY_FIELDS) {
+			current[field - 1] = ProcParser.parseLong(buffer, start, end);
+		}
+	}
+
+	public void onLineEnd(int line, int fieldCount) {
+		if (lineIndex < 0) {
+			return;
+		}
+		ensureCapacity(lineIndex);
+		long[] prev = previous[lineIndex];
+		if (seen[lineIndex]) {
+			long total = 0;
+			for (int i = 0; i < JIFFY_FIELDS; i++) {
+				total += current[i] - prev[i];
+			}
+			if (total > 0) {
+				record[USER] = (current[0] - prev[0] + current[1] - prev[1]) * 10000 / total;
+				record[SYSTEM] = (current[2] - prev[2]) * 10000 / total;
+				record[IDLE] = (current[3] - prev[3]) * 10000 / total;
+				record[IOWAIT] = (current[4] - prev[4]) * 10000 / total;
+				record[IRQ] = (current[5] - prev[5] + current[6] - prev[6]) * 10000 / total;
+				history[lineIndex].add(record);
+			}
+		}
+		System.arraycopy(current, 0, prev, 0, JIFFY_FIELDS);
+		seen[lineIndex] = true;
+	}
+
+	/** @return number of history slots: the aggregate plus one per core seen so far */
+	public synchronized int getCpuCount() {
+		return history.length;
+	}
+
+	/**
+	 * Copies the latest sample of cpu (0 is the aggregate, n + 1 is core n) to
+	 * dest.
+	 * 
+	 * @return false if there is no sample yet
+	 */
+	public synchronized boolean getLatest(int cpu, long[] dest) {
+		if (cpu >= history.length || history[cpu].size() == 0) {
+			return false;
+		}
+		for (int i = 0; i < COLUMNS; i++) {
+			dest[i] = history[cpu].getLatest(i);
+		}
+		return true;
+	}
+
+	private static String formatUsage(LongRingBuffer buffer, boolean average) {
+		long[] values = new long[COLUMNS];
+		for (int i = 0; i < COLUMNS; i++) {
+			values[i] = average ? buffer.average(i) : buffer.getLatest(i);
+		}
+		return String.format(Utils.locale, "user %.1f%%, system %.1f%%, iowait %.1f%%, irq %.1f%%, idle %.1f%%",
+				values[USER] / 100.0, values[SYSTEM] / 100.0, values[IOWAIT] / 100.0, values[IRQ] / 100.0,
+				values[IDLE] / 100.0);
+	}
+
+	@Override
+	protected ConfigList buildSection() {
+		ConfigList usage = new ConfigList(getName());
+		List<ConfigBase> items = usage.getItems();
+		for (int i = 0; i < history.length; i++) {
+			if (!seen[i]) {
+				continue;
+			}
+			String name = (i == 0) ? "Total" : "cpu" + (i - 1);
+			if (history[i].size() == 0) {
+				items.add(new Config(name, null));
+			} else {
+				items.add(new Config(name, formatUsage(history[i], false)));
+				items.add(new Config(name + " average (" + history[i].size() + " samples)", formatUsage(history[i],
+						true)));
+			}
+		}
+		return usage;
+	}
+}
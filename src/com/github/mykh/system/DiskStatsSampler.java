@@ -0,0 +1,214 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.IFieldHandler;
+import com.github.mykh.common.LongRingBuffer;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.Utils;
+
+/**
+ * Per-device block I/O from /proc/diskstats: IOPS, throughput, average
+ * latency, utilization and requests in flight, computed from the deltas
+ * between samples. Loop and RAM disks are skipped. The file is kept open and
+ * a tick does not allocate unless a device appears.
+ */
+public class DiskStatsSampler extends PeriodicSampler implements IFieldHandler {
+	public static final String DISKSTATS_FILE = "/proc/diskstats";
+	public static final int HISTORY_SIZE = 60;
+	public static final int SECTOR_SIZE = 512; // diskstats always counts 512 byte sectors
+	private static final String[] SKIPPED_PREFIXES = { "loop", "ram" };
+
+	// counters, in /proc/diskstats field order after major, minor and name
+	private static final int READS = 0;
+	private static final int READ_SECTORS = 1;
+	private static final int READ_TICKS = 2; // ms
+	private static final int WRITES = 3;
+	private static final int WRITE_SECTORS = 4;
+	private static final int WRITE_TICKS = 5; // ms
+	private static final int IN_FLIGHT = 6;
+	private static final int IO_TICKS = 7; // ms
+	private static final int COUNTERS = 8;
+	private static final int[] FIELDS = { 3, 5, 6, 7, 9, 10, 11, 12 };
+
+	// columns of the rate history
+	public static final int READ_IOPS = 0;
+	public static final int WRITE_IOPS = 1;
+	public static final int READ_BYTES = 2; // per second
+	public static final int WRITE_BYTES = 3; // per second
+	public static final int READ_LATENCY = 4; // µs per request
+	public static final int WRITE_LATENCY = 5; // µs per request
+	public static final int UTILIZATION = 6; // basis points of the interval
+	public static final int QUEUED = 7; // requests in flight
+
+	private static class Device {
+		final String name;
+		final long[] counters = new long[COUNTERS];
+		final long[] previous = new long[COUNTERS];
+		final LongRingBuffer rates = new LongRingBuffer(HISTORY_SIZE, 8);
+		boolean present;
+		boolean hasPrevious;
+
+		Device(String name) {
+			this.name = name;
+		}
+	}
+
+	private final ProcFileReader reader;
+	private final List<Device> devices = new ArrayList<Device>();
+	private final long[] record = new long[8];
+	private Device parsing;
+	private long lastSample = 0; // ns
+
+	/** @param diskstatsFile normally {@link #DISKSTATS_FILE} */
+	public DiskStatsSampler(String diskstatsFile) {
+		super("Disk I/O");
+		reader = new ProcFileReader(diskstatsFile);
+	}
+
+	public DiskStatsSampler() {
+		this(DISKSTATS_FILE);
+	}
+
+	@Override
+	protected void sample() throws IOException {
+		long now = System.nanoTime();
+		for (Device device : devices) {
+			device.present = false;
+		}
+		reader.read();
+		ProcParser.parseFields(reader, 0, this);
+		long elapsed = now - lastSample;
+		for (Device device : devices) {
+			if (!device.present) {
+				device.hasPrevious = false;
+				continue;
+			}
+			if (device.hasPrevious && lastSample != 0 && elapsed > 0) {
+				long[] c = device.counters;
+				long[] p = device.previous;
+				long reads = delta(c, p, READS);
+				long writes = delta(c, p, WRITES);
+				record[READ_IOPS] = perSecond(reads, elapsed);
+				record[WRITE_IOPS] = perSecond(writes, elapsed);
+				record[READ_BYTES] = perSecond(delta(c, p, READ_SECTORS) * SECTOR_SIZE, elapsed);
+				record[WRITE_BYTES] = perSecond(delta(c, p, WRITE_SECTORS) * SECTOR_SIZE, elapsed);
+				record[READ_LATENCY] = (reads == 0) ? 0 : delta(c, p, READ_TICKS) * 1000 / reads;
+				record[WRITE_LATENCY] = (writes == 0) ? 0 : delta(c, p, WRITE_TICKS) * 1000 / writes;
+				record[UTILIZATION] = Math.min(10000,
+						delta(c, p, IO_TICKS) * 10000 / Math.max(1, TimeUnit.NANOSECONDS.toMillis(elapsed)));
+				record[QUEUED] = c[IN_FLIGHT];
+				device.rates.add(record);
+			}
+			System.arraycopy(device.counters, 0, device.previous, 0, COUNTERS);
+			device.hasPrevious = true;
+		}
+		lastSample = now;
+	}
+
+	private static long delta(long[] counters, long[] previous, int counter) {
+		long delta = counters[counter] - previous[counter];
+		return (delta < 0) ? 0 : delta; // 32-bit counters wrap on older kernels
+	}
+
+	private static long perSecond(long delta, long elapsed) {
+		// in double, delta * 1e9 overflows a long above ~9.2 GB (long gaps in refresh-only mode)
+		return (long) (delta * 1e9 / elapsed);
+	}
+
+	private Device find(ByteBuffer buffer, int start, int end, int hint) {
+		if (hint < devices.size() && ProcParser.equalsAscii(buffer, start, end, devices.get(hint).name)) {
+			return devices.get(hint);
+		}
+		for (Device device : devices) {
+			if (ProcParser.equalsAscii(buffer, start, end, device.name)) {
+				return device;
+			}
+		}
+		Device device = new Device(ProcParser.toString(buffer, start, end));
+		devices.add(device);
+		return device;
+	}
+
+	public void onField(int line, int field, ByteBuffer buffer, int start, int end) {
+		if (field < 2) {
+			if (field == 0) {
+				parsing = null;
+			}
+			return;
+		}
+		if (field == 2) {
+			for (String prefix : SKIPPED_PREFIXES) {
+				if (ProcParser.startsWithAscii(buffer, start, end, prefix)) {
+					return;
+				}
+			}
+			parsing = find(buffer, start, end, line);
+			parsing.present = true;
+			return;
+		}
+		if (parsing == null) {
+			return;
+		}
+		for (int i = 0; i < COUNTERS; i++) {
+			if (FIELDS[i] == field) {
+				parsing.counters[i] = ProcParser.parseLong(buffer, start, end);
+				break;
+			}
+		}
+	}
+
+	public void onLineEnd(int line, int fieldCount) {
+	}
+
+	@Override
+	protected ConfigList buildSection() {
+		ConfigList disks = new ConfigList(getName(),
+				"Reads, writes, average latency, utilization and requests in flight over the last interval. Idle devices are not shown.");
+		List<ConfigBase> items = disks.getItems();
+		for (Device device : devices) {
+			long[] c = device.counters;
+			if (!device.present || c[READS] + c[WRITES] == 0) {
+				continue;
+			}
+			LongRingBuffer rates = device.rates;
+			if (rates.size() == 0) {
+				items.add(new Config(device.name, String.format(Utils.locale, "%d reads, %d writes since boot",
+						c[READS], c[WRITES])));
+				continue;
+			}
+			items.add(new Config(device.name, String.format(Utils.locale,
+					"read %d IOPS %s/s %.1f ms, write %d IOPS %s/s %.1f ms, busy %d%%, in flight %d",
+					rates.getLatest(READ_IOPS), Utils.formatBytes(rates.getLatest(READ_BYTES)),
+					rates.getLatest(READ_LATENCY) / 1000.0, rates.getLatest(WRITE_IOPS),
+					Utils.formatBytes(rates.getLatest(WRITE_BYTES)), rates.getLatest(WRITE_LATENCY) / 1000.0,
+					rates.getLatest(UTILIZATION) / 100, rates.getLatest(QUEUED))));
+		}
+		return disks;
+	}
+}
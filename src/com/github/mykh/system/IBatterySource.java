@@ -0,0 +1,32 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+/**
+ * Where the Battery section gets its data from: the sticky broadcast
+ * ({@link BatteryReceiver}) or sysfs ({@link PowerSupplyBatterySource}).
+ */
+public interface IBatterySource {
+	/** False until the source has data, e.g. before the first broadcast. */
+	public boolean isAvailable();
+
+	/** The latest state, {@link BatterySample#EMPTY} if not available. */
+	public BatterySample getSample();
+
+	public BatteryHistory getHistory();
+}
@@ -0,0 +1,36 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import android.os.SystemClock;
+
+/**
+ * Time source of the samplers, replaceable so they can run against a fake
+ * sysfs tree off the device.
+ */
+public interface IClock {
+	/** SystemClock.elapsedRealtime(), the time base of {@link BatterySample}. */
+	public static final IClock ELAPSED_REALTIME = new IClock() {
+		public long now() {
+			return SystemClock.elapsedRealtime();
+		}
+	};
+
+	/** @return ms, monotonic */
+	public long now();
+}
@@ -0,0 +1,31 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+/**
+ * Receives stall events from {@link PressureMonitor}. Called from the monitor
+ * thread; implementations must return quickly.
+ */
+public interface IPressureListener {
+	/**
+	 * @param resource {@link PressureMonitor#MEMORY}, {@link PressureMonitor#CPU} or {@link PressureMonitor#IO}
+	 * @param full true for a "full" trigger, false for "some"
+	 * @param time System.currentTimeMillis() of the event
+	 */
+	public void onPressureEvent(int resource, boolean full, long time);
+}
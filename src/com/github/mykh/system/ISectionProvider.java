@@ -0,0 +1,44 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import com.github.mykh.common.ConfigList;
+
+/**
+ * Builds one top-level section of the report. Providers are independent of
+ * each other and may be called from any worker thread.
+ */
+public interface ISectionProvider {
+	/** The data never changes during the process lifetime. */
+	public static final long TTL_STATIC = Long.MAX_VALUE;
+	/** The data changes constantly and is collected on every refresh. */
+	public static final long TTL_LIVE = 0;
+
+	public String getName();
+
+	/** Maximum time (ms) the section may take before it is reported as timed out. */
+	public long getTimeout();
+
+	/**
+	 * How long (ms) a collected section stays valid: {@link #TTL_LIVE},
+	 * {@link #TTL_STATIC} or anything in between.
+	 */
+	public long getTtl();
+
+	public ConfigList collect() throws Exception;
+}
@@ -0,0 +1,278 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.IFieldHandler;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.Utils;
+
+/**
+ * Per CPU interrupt and softirq rates from /proc/interrupts and
+ * /proc/softirqs. Both tables are parsed into long[row][cpu] matrices that are
+ * reused between samples and only grow (by doubling) when rows or CPUs are
+ * added; rows are matched by name, so a changed row order or a vanished row
+ * does not mix up counters. The section shows the busiest rows of every CPU.
+ */
+public class InterruptSampler extends PeriodicSampler {
+	public static final int TOP_COUNT = 5;
+
+	/** One wide table: a header with the CPU columns, then one row per source. */
+	private static class IrqTable implements IFieldHandler {
+		final String title;
+		final ProcFileReader reader;
+		int[] cpuIds = new int[8]; // CPU number of every column
+		int cpuCount = 0;
+		int cpuCapacity = 8; // width of the row arrays
+		boolean layoutChanged;
+		int rowCount = 0;
+		String[] names = new String[16];
+		String[] descriptions = new String[16];
+		boolean[] present = new boolean[16];
+		boolean[] hasPrevious = new boolean[16];
+		long[][] counts = new long[16][];
+		long[][] previous = new long[16][];
+		long[][] rates = new long[16][]; // per second
+		boolean hasRates = false;
+
+		// parser state of the current line
+		int row;
+		int descriptionStart;
+		int lastEnd;
+		ByteBuffer buffer;
+
+		IrqTable(String title, String path) {
+			this.title = title;
+			this.reader = new ProcFileReader(path);
+		}
+
+		void read(long elapsed) throws IOException {
+			reader.read();
+			for (int i = 0; i < rowCount; i++) {
+				present[i] = false;
+			}
+			ProcParser.parseFields(reader, ProcParser.SPLIT_ON_COLON, this);
+			hasRates = false;
+			for (int i = 0; i < rowCount; i++) {
+				if (!present[i]) {
+					hasPrevious[i] = false;
+					continue;
+				}
+				long[] c = counts[i];
+				long[] p = previous[i];
+				if (hasPrevious[i] && elapsed > 0) {
+					for (int cpu = 0; cpu < cpuCount; cpu++) {
+						long delta = c[cpu] - p[cpu];
+						rates[i][cpu] = (delta < 0) ? 0 : delta * TimeUnit.SECONDS.toNanos(1) / elapsed;
+					}
+					hasRates = true;
+				}
+				System.arraycopy(c, 0, p, 0, cpuCount);
+				hasPrevious[i] = true;
+			}
+		}
+
+		private void ensureRows(int count) {
+			if (count <= names.length) {
+				return;
+			}
+			int capacity = Math.max(count, names.length * 2);
+			String[] newNames = new String[capacity];
+			String[] newDescriptions = new String[capacity];
+			boolean[] newPresent = new boolean[capacity];
+			boolean[] newHasPrevious = new boolean[capacity];
+			long[][] newCounts = new long[capacity][];
+			long[][] newPrevious = new long[capacity][];
+			long[][] newRates = new long[capacity][];
+			System.arraycopy(names, 0, newNames, 0, rowCount);
+			System.arraycopy(descriptions, 0, newDescriptions, 0, rowCount);
+			System.arraycopy(present, 0, newPresent, 0, rowCount);
+			System.arraycopy(hasPrevious, 0, newHasPrevious, 0, rowCount);
+			System.arraycopy(counts, 0, newCounts, 0, rowCount);
+			System.arraycopy(previous, 0, newPrevious, 0, rowCount);
+			System.arraycopy(rates, 0, newRates, 0, rowCount);
+			names = newNames;
+			descriptions = newDescriptions;
+			present = newPresent;
+			hasPrevious = newHasPrevious;
+			counts = newCounts;
+			previous = newPrevious;
+			rates = newRates;
+		}
+
+		private void setCpuCount(int count) {
+			if (count != cpuCount) {
+				layoutChanged = true;
+			}
+			cpuCount = count;
+			if (count > cpuCapacity) {
+				cpuCapacity = Math.max(count, cpuCapacity * 2);
+				for (int i = 0; i < rowCount; i++) {
+					counts[i] = new long[cpuCapacity];
+					previous[i] = new long[cpuCapacity];
+					rates[i] = new long[cpuCapacity];
+				}
+			}
+			if (layoutChanged) {
+				// columns belong to other CPUs now
+				for (int i = 0; i < rowCount; i++) {
+					hasPrevious[i] = false;
+				}
+			}
+		}
+
+		private int findRow(ByteBuffer buffer, int start, int end, int hint) {
+			if (hint < rowCount && ProcParser.equalsAscii(buffer, start, end, names[hint])) {
+				return hint;
+			}
+			for (int i = 0; i < rowCount; i++) {
+				if (ProcParser.equalsAscii(buffer, start, end, names[i])) {
+					return i;
+				}
+			}
+			ensureRows(rowCount + 1);
+			names[rowCount] = ProcParser.toString(buffer, start, end);
+			descriptions[rowCount] = null;
+			counts[rowCount] = new long[cpuCapacity];
+			previous[rowCount] = new long[cpuCapacity];
+			rates[rowCount] = new long[cpuCapacity];
+			hasPrevious[rowCount] = false;
+			return rowCount++;
+		}
+
+		public void onField(int line, int field, ByteBuffer buffer, int start, int end) {
+			if (line == 0) {
+				// "CPU0 CPU1 ...", offline CPUs are left out
+				if (field == 0) {
+					layoutChanged = false;
+				}
+				if (field >= cpuIds.length) {
+					int[] grown = new int[cpuIds.length * 2];
+					System.arraycopy(cpuIds, 0, grown, 0, cpuIds.length);
+					cpuIds = grown;
+				}
+				int cpu = (int) ProcParser.parseLong(buffer, start + 3, end);
+				if (cpuIds[field] != cpu) {
+					cpuIds[field] = cpu;
+					layoutChanged = true;
+				}
+				return;
+			}
+			if (field == 0) {
+				row = findRow(buffer, start, end, line - 1);
+				present[row] = true;
+				descriptionStart = -1;
+				this.buffer = buffer;
+				long[] c = counts[row];
+				for (int cpu = 0; cpu < cpuCount; cpu++) {
+					c[cpu] = 0;
+				}
+			} else if (descriptionStart < 0 && field <= cpuCount && ProcParser.isDigits(buffer, start, end)) {
+				counts[row][field - 1] = ProcParser.parseLong(buffer, start, end);
+			} else if (descriptionStart < 0) {
+				descriptionStart = start;
+			}
+			lastEnd = end;
+		}
+
+		public void onLineEnd(int line, int fieldCount) {
+			if (line == 0) {
+				setCpuCount(fieldCount);
+			} else if (descriptionStart >= 0 && descriptions[row] == null) {
+				descriptions[row] = ProcParser.toString(buffer, descriptionStart, lastEnd);
+			}
+		}
+
+		ConfigList buildSection() {
+			ConfigList table = new ConfigList(title, "Busiest sources per CPU over the last interval, per second.");
+			if (!hasRates) {
+				return table;
+			}
+			int[] top = new int[TOP_COUNT];
+			for (int cpu = 0; cpu < cpuCount; cpu++) {
+				int found = 0;
+				for (int i = 0; i < rowCount; i++) {
+					if (!present[i] || !hasPrevious[i] || rates[i][cpu] == 0) {
+						continue;
+					}
+					// insertion into the sorted top list
+					int pos = Math.min(found, TOP_COUNT);
+					while (pos > 0 && rates[top[pos - 1]][cpu] < rates[i][cpu]) {
+						if (pos < TOP_COUNT) {
+							top[pos] = top[pos - 1];
+						}
+						pos--;
+					}
+					if (pos < TOP_COUNT) {
+						top[pos] = i;
+						found = Math.min(found + 1, TOP_COUNT);
+					}
+				}
+				ConfigList core = new ConfigList("CPU" + cpuIds[cpu]);
+				List<ConfigBase> items = core.getItems();
+				for (int j = 0; j < found; j++) {
+					int i = top[j];
+					String name = (descriptions[i] != null) ? names[i] + " (" + descriptions[i] + ")" : names[i];
+					items.add(new Config(name, String.format(Utils.locale, "%d/s", rates[i][cpu])));
+				}
+				table.getItems().add(core);
+			}
+			return table;
+		}
+	}
+
+	private final IrqTable interrupts;
+	private final IrqTable softirqs;
+	private long lastSample = 0; // ns
+
+	/** @param procDir normally /proc */
+	public InterruptSampler(String procDir) {
+		super("Interrupts");
+		interrupts = new IrqTable("Hardware interrupts", procDir + "/interrupts");
+		softirqs = new IrqTable("Softirqs", procDir + "/softirqs");
+	}
+
+	public InterruptSampler() {
+		this("/proc");
+	}
+
+	@Override
+	protected void sample() throws IOException {
+		long now = System.nanoTime();
+		long elapsed = (lastSample == 0) ? 0 : now - lastSample;
+		lastSample = now;
+		interrupts.read(elapsed);
+		softirqs.read(elapsed);
+	}
+
+	@Override
+	protected ConfigList buildSection() {
+		ConfigList section = new ConfigList(getName());
+		section.getItems().add(interrupts.buildSection());
+		section.getItems().add(softirqs.buildSection());
+		return section;
+	}
+}
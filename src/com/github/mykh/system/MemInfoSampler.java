@@ -0,0 +1,164 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.ConfigLong;
+import com.github.mykh.common.IKeyValueHandler;
+import com.github.mykh.common.LongRingBuffer;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.Unit;
+import com.github.mykh.common.Utils;
+
+/**
+ * Parses every field of /proc/meminfo into a long (kB for the fields with a kB
+ * unit) and records {@link #MEM_FREE}, {@link #MEM_AVAILABLE},
+ * {@link #CACHED}, {@link #BUFFERS} and {@link #SWAP_FREE} in a history. Field
+ * names are only allocated when the layout of the file changes, so a tick does
+ * not allocate.
+ */
+public class MemInfoSampler extends PeriodicSampler implements IKeyValueHandler {
+	public static final int HISTORY_SIZE = 60;
+
+	public static final int MEM_FREE = 0;
+	public static final int MEM_AVAILABLE = 1;
+	public static final int CACHED = 2;
+	public static final int BUFFERS = 3;
+	public static final int SWAP_FREE = 4;
+	private static final String[] TRACKED_FIELDS = { "MemFree", "MemAvailable", "Cached", "Buffers", "SwapFree" };
+
+	private final ProcFileReader reader = new ProcFileReader("/proc/meminfo");
+	private String[] names = new String[64];
+	private boolean[] inKb = new boolean[64];
+	private long[] values = new long[64];
+	private int count = 0;
+	private int index;
+	private boolean layoutChanged = true;
+	private final int[] trackedIndexes = new int[TRACKED_FIELDS.length];
+	private final long[] record = new long[TRACKED_FIELDS.length];
+	private final LongRingBuffer history = new LongRingBuffer(HISTORY_SIZE, TRACKED_FIELDS.length);
+
+	public MemInfoSampler() {
+		super("/proc/meminfo");
+	}
+
+	@Override
+	protected void sample() throws IOException {
+		reader.read();
+		index = 0;
+		ProcParser.parseKeyValues(reader, this);
+		if (count != index) {
+			count = index;
+			layoutChanged = true;
+		}
+		if (layoutChanged) {
+			for (int i = 0; i < TRACKED_FIELDS.length; i++) {
+				trackedIndexes[i] = indexOf(TRACKED_FIELDS[i]);
+			}
+			layoutChanged = false;
+		}
+		for (int i = 0; i < TRACKED_FIELDS.length; i++) {
+			record[i] = (trackedIndexes[i] < 0) ? -1 : values[trackedIndexes[i]];
+		}
+		history.add(record);
+	}
+
+	public void onKeyValue(ByteBuffer buffer, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+		if (index == names.length) {
+			String[] newNames = new String[index * 2];
+			boolean[] newInKb = new boolean[index * 2];
+			long[] newValues = new long[index * 2];
+			System.arraycopy(names, 0, newNames, 0, index);
+			System.arraycopy(inKb, 0, newInKb, 0, index);
+			System.arraycopy(values, 0, newValues, 0, index);
+			names = newNames;
+			inKb = newInKb;
+			values = newValues;
+		}
+		if (index >= count || names[index] == null || !ProcParser.equalsAscii(buffer, keyStart, keyEnd, names[index])) {
+			names[index] = ProcParser.toString(buffer, keyStart, keyEnd);
+			inKb[index] = (valueEnd - valueStart > 2) && ProcParser.equalsAscii(buffer, valueEnd - 2, valueEnd, "kB");
+			layoutChanged = true;
+		}
+		values[index] = ProcParser.parseLong(buffer, valueStart, valueEnd);
+		index++;
+	}
+
+	private int indexOf(String name) {
+		for (int i = 0; i < count; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/** @return value of the field (kB for sizes) or -1 if there is no such field */
+	public synchronized long getValue(String name) {
+		int i = indexOf(name);
+		return (i < 0) ? -1 : values[i];
+	}
+
+	/** @param field one of {@link #MEM_FREE} ... {@link #SWAP_FREE} */
+	public synchronized long getLatest(int field) {
+		return (history.size() == 0) ? -1 : history.getLatest(field);
+	}
+
+	/** @return free memory (kB) the system can use without swapping, or -1 if unknown */
+	public synchronized long getAvailable() {
+		long available = getLatest(MEM_AVAILABLE);
+		if (available < 0) {
+			// Kernels before 3.14 have no MemAvailable
+			long free = getLatest(MEM_FREE);
+			if (free < 0) {
+				return -1;
+			}
+			available = free + Math.max(0, getLatest(CACHED)) + Math.max(0, getLatest(BUFFERS));
+		}
+		return available;
+	}
+
+	/** @return min/avg/max of the field over the history, or null */
+	public synchronized String getHistoryStr(int field) {
+		if (history.size() == 0 || history.getLatest(field) < 0) {
+			return null;
+		}
+		return String.format(Utils.locale, "%s / %s / %s (%d samples)", formatKb(history.min(field)),
+				formatKb(history.average(field)), formatKb(history.max(field)), history.size());
+	}
+
+	public static String formatKb(long kb) {
+		return String.format(Utils.locale, "%.1f MB", kb / (double) Utils.KB);
+	}
+
+	@Override
+	protected ConfigList buildSection() {
+		ConfigList meminfo = new ConfigList(getName());
+		List<ConfigBase> items = meminfo.getItems();
+		for (int i = 0; i < count; i++) {
+			items.add(new ConfigLong(names[i], values[i], inKb[i] ? Unit.KILOBYTES : Unit.NONE));
+		}
+		return meminfo;
+	}
+}
@@ -0,0 +1,234 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.DaemonThreadFactory;
+import com.github.mykh.common.IFieldHandler;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.Utils;
+
+import android.os.StatFs;
+
+/**
+ * Mount points from /proc/mounts with capacity and free space of each of them.
+ * statfs() may block for a long time on a stale or slow mount, so all lookups
+ * run in parallel and every one of them gets {@link #LOOKUP_TIMEOUT}. A mount
+ * whose previous lookup is still hanging is not queried again until that
+ * lookup returns. Only running lookups are remembered, so unmounted paths do
+ * not stay in the table.
+ */
+public class MountsProvider extends SectionProvider implements IFieldHandler {
+	public static final String MOUNTS_FILE = "/proc/mounts";
+	public static final long LOOKUP_TIMEOUT = 500; // ms
+
+	private static final String[] PSEUDO_FILESYSTEMS = { "autofs", "binfmt_misc", "bpf", "cgroup", "cgroup2",
+			"configfs", "debugfs", "devpts", "functionfs", "fusectl", "hugetlbfs", "mqueue", "proc", "pstore",
+			"rootfs", "securityfs", "selinuxfs", "sysfs", "tracefs", "usbfs" };
+
+	private static class Mount {
+		String device;
+		String path;
+		String type;
+		String options;
+	}
+
+	private final ProcFileReader reader;
+	private final ExecutorService executor = Executors.newCachedThreadPool(new DaemonThreadFactory("SysInfo-statfs"));
+	private final Map<String, Future<long[]>> pending = new HashMap<String, Future<long[]>>();
+	private final List<Mount> mounts = new ArrayList<Mount>();
+	private Mount parsed;
+
+	/** @param mountsFile normally {@link #MOUNTS_FILE} */
+	public MountsProvider(String mountsFile) {
+		super("Mount points", DEFAULT_TIMEOUT, 10000);
+		reader = new ProcFileReader(mountsFile);
+	}
+
+	public MountsProvider() {
+		this(MOUNTS_FILE);
+	}
+
+	/** Decodes the octal escapes (e.g. \040 for space) used in /proc/mounts. */
+	private static String unescape(ByteBuffer buffer, int start, int end) {
+		String str = ProcParser.toString(buffer, start, end);
+		if (str.indexOf('\\') < 0) {
+			return str;
+		}
+		StringBuilder sb = new StringBuilder(str.length());
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if (c == '\\' && i + 3 < str.length() && Character.isDigit(str.charAt(i + 1))) {
+				sb.append((char) Integer.parseInt(str.substring(i + 1, i + 4), 8));
+				i += 3;
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static boolean isPseudo(String type) {
+		for (String pseudo : PSEUDO_FILESYSTEMS) {
+			if (pseudo.equals(type)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void onField(int line, int field, ByteBuffer buffer, int start, int end) {
+		if (field == 0) {
+			parsed = new Mount();
+			parsed.device = ProcParser.toString(buffer, start, end);
+		} else if (field == 1) {
+			parsed.path = unescape(buffer, start, end);
+		} else if (field == 2) {
+			parsed.type = ProcParser.toString(buffer, start, end);
+		} else if (field == 3) {
+			parsed.options = ProcParser.toString(buffer, start, end);
+		}
+	}
+
+	public void onLineEnd(int line, int fieldCount) {
+		if (fieldCount >= 4 && !isPseudo(parsed.type)) {
+			mounts.add(parsed);
+		}
+		parsed = null;
+	}
+
+	/** Starts a statfs() of path unless the previous one is still running. Holds the pending lock. */
+	private Future<long[]> lookup(final String path) {
+		Future<long[]> future = pending.get(path);
+		if (future == null || future.isDone()) {
+			future = executor.submit(new Callable<long[]>() {
+				public long[] call() {
+					StatFs stat = new StatFs(path);
+					long blockSize = stat.getBlockSize();
+					return new long[] { blockSize * stat.getBlockCount(), blockSize * stat.getAvailableBlocks() };
+				}
+			});
+			pending.put(path, future);
+		}
+		return future;
+	}
+
+	/** Starts the lookups of all paths at once, a null path gets a null future. */
+	private List<Future<long[]>> lookup(List<String> paths) {
+		List<Future<long[]>> futures = new ArrayList<Future<long[]>>(paths.size());
+		synchronized (pending) {
+			Iterator<Future<long[]>> it = pending.values().iterator();
+			while (it.hasNext()) {
+				if (it.next().isDone()) {
+					it.remove();
+				}
+			}
+			for (String path : paths) {
+				futures.add((path == null) ? null : lookup(path));
+			}
+		}
+		return futures;
+	}
+
+	private static String describe(Future<long[]> future, long deadline) {
+		try {
+			long[] capacity = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			return Utils.formatBytes(capacity[0]) + " / " + Utils.formatBytes(capacity[1]);
+		} catch (TimeoutException e) {
+			return "not responding";
+		} catch (ExecutionException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	/**
+	 * @return "total / available" space of the file system containing path,
+	 *         waiting at most {@link #LOOKUP_TIMEOUT}
+	 */
+	public String getCapacityStr(String path) {
+		return getCapacityStrs(path)[0];
+	}
+
+	/**
+	 * Like {@link #getCapacityStr} for several paths, looked up in parallel
+	 * and waiting at most {@link #LOOKUP_TIMEOUT} for all of them together.
+	 * 
+	 * @return null for a null path
+	 */
+	public String[] getCapacityStrs(String... paths) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LOOKUP_TIMEOUT);
+		List<Future<long[]>> futures = lookup(Arrays.asList(paths));
+		String[] capacities = new String[paths.length];
+		for (int i = 0; i < paths.length; i++) {
+			Future<long[]> future = futures.get(i);
+			capacities[i] = (future == null) ? null : describe(future, deadline);
+		}
+		return capacities;
+	}
+
+	private synchronized List<Mount> readMounts() throws IOException {
+		mounts.clear();
+		reader.read();
+		ProcParser.parseFields(reader, 0, this);
+		return new ArrayList<Mount>(mounts);
+	}
+
+	/** Does not hold the lock while waiting, so getCapacityStr() is never blocked by it. */
+	public ConfigList collect() throws IOException {
+		List<Mount> mounts = readMounts();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LOOKUP_TIMEOUT);
+		List<String> paths = new ArrayList<String>(mounts.size());
+		for (Mount mount : mounts) {
+			paths.add(mount.path);
+		}
+		List<Future<long[]>> futures = lookup(paths);
+		ConfigList list = new ConfigList(getName(), "Total / available space, file system type, device and options.");
+		for (int i = 0; i < mounts.size(); i++) {
+			Mount mount = mounts.get(i);
+			String capacity = describe(futures.get(i), deadline);
+			list.getItems().add(new Config(mount.path, ((capacity == null) ? "" : capacity + ", ") + mount.type + " "
+					+ mount.device + " (" + mount.options + ")"));
+		}
+		return list;
+	}
+
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
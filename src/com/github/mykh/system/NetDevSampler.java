@@ -0,0 +1,286 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.IFieldHandler;
+import com.github.mykh.common.LongRingBuffer;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.Utils;
+
+/**
+ * Per-interface traffic counters and rates from /proc/net/dev. Where that file
+ * can not be read (it is restricted for apps on newer Android versions) the
+ * counters come from /sys/class/net/[iface]/statistics instead. /proc/net/dev
+ * is tried again at every probe, so a failure that was only temporary does not
+ * leave the sampler on sysfs, and interfaces that were not seen at the probe
+ * are dropped. Rates between samples are kept in a history per interface; a
+ * tick does not allocate unless an interface appears.
+ */
+public class NetDevSampler extends PeriodicSampler implements IFieldHandler {
+	public static final int HISTORY_SIZE = 60;
+	public static final long PROBE_INTERVAL = 10000; // ms, procfs retry and interface discovery
+
+	public static final int RX_BYTES = 0;
+	public static final int RX_PACKETS = 1;
+	public static final int RX_ERRORS = 2;
+	public static final int RX_DROPPED = 3;
+	public static final int TX_BYTES = 4;
+	public static final int TX_PACKETS = 5;
+	public static final int TX_ERRORS = 6;
+	public static final int TX_DROPPED = 7;
+	private static final int COUNTERS = 8;
+	private static final String[] SYSFS_COUNTERS = { "rx_bytes", "rx_packets", "rx_errors", "rx_dropped",
+			"tx_bytes", "tx_packets", "tx_errors", "tx_dropped" };
+	// /proc/net/dev field of every counter, after the interface name
+	private static final int[] PROC_FIELDS = { 1, 2, 3, 4, 9, 10, 11, 12 };
+
+	// columns of the rate history, per second
+	public static final int RATE_RX_BYTES = 0;
+	public static final int RATE_TX_BYTES = 1;
+	public static final int RATE_RX_PACKETS = 2;
+	public static final int RATE_TX_PACKETS = 3;
+
+	private static class Interface {
+		final String name;
+		final long[] counters = new long[COUNTERS];
+		final long[] previous = new long[COUNTERS];
+		final LongRingBuffer rates = new LongRingBuffer(HISTORY_SIZE, 4);
+		ProcFileReader[] statistics; // sysfs source only
+		boolean present;
+		boolean hasPrevious;
+
+		Interface(String name) {
+			this.name = name;
+		}
+	}
+
+	private final ProcFileReader reader;
+	private final String sysfsDir;
+	private boolean useSysfs = false;
+	private long nextProbe = 0; // ns
+	private final List<Interface> interfaces = new ArrayList<Interface>();
+	private final long[] record = new long[4];
+	private Interface parsing;
+	private long lastSample = 0; // ns
+
+	/**
+	 * @param procFile normally /proc/net/dev
+	 * @param sysfsDir normally /sys/class/net
+	 */
+	public NetDevSampler(String procFile, String sysfsDir) {
+		super("Networks");
+		this.reader = new ProcFileReader(procFile);
+		this.sysfsDir = sysfsDir;
+	}
+
+	/** @param sysfsDir normally /sys/class/net */
+	public NetDevSampler(String sysfsDir) {
+		this("/proc/net/dev", sysfsDir);
+	}
+
+	public NetDevSampler() {
+		this("/sys/class/net");
+	}
+
+	private Interface find(ByteBuffer buffer, int start, int end, int hint) {
+		if (hint < interfaces.size() && ProcParser.equalsAscii(buffer, start, end, interfaces.get(hint).name)) {
+			return interfaces.get(hint);
+		}
+		for (Interface iface : interfaces) {
+			if (ProcParser.equalsAscii(buffer, start, end, iface.name)) {
+				return iface;
+			}
+		}
+		Interface iface = new Interface(ProcParser.toString(buffer, start, end));
+		interfaces.add(iface);
+		return iface;
+	}
+
+	private Interface find(String name) {
+		for (Interface iface : interfaces) {
+			if (iface.name.equals(name)) {
+				return iface;
+			}
+		}
+		Interface iface = new Interface(name);
+		interfaces.add(iface);
+		return iface;
+	}
+
+	@Override
+	protected void sample() throws IOException {
+		long now = System.nanoTime();
+		boolean probe = now - nextProbe >= 0;
+		if (probe) {
+			nextProbe = now + TimeUnit.MILLISECONDS.toNanos(PROBE_INTERVAL);
+		}
+		for (Interface iface : interfaces) {
+			iface.present = false;
+		}
+		if (!useSysfs || probe) {
+			try {
+				reader.read();
+				ProcParser.parseFields(reader, ProcParser.SPLIT_ON_COLON, this);
+				if (useSysfs) {
+					useSysfs = false;
+					for (Interface iface : interfaces) {
+						closeStatistics(iface);
+					}
+				}
+			} catch (IOException e) {
+				useSysfs = true;
+				reader.close();
+			}
+		}
+		if (useSysfs) {
+			sampleSysfs(probe);
+		}
+		long elapsed = now - lastSample;
+		for (int i = 0; i < interfaces.size();) {
+			Interface iface = interfaces.get(i);
+			if (!iface.present) {
+				if (probe) {
+					// gone, it is added again if it comes back
+					closeStatistics(iface);
+					interfaces.remove(i);
+				} else {
+					iface.hasPrevious = false;
+					i++;
+				}
+				continue;
+			}
+			if (iface.hasPrevious && lastSample != 0 && elapsed > 0) {
+				record[RATE_RX_BYTES] = perSecond(iface, RX_BYTES, elapsed);
+				record[RATE_TX_BYTES] = perSecond(iface, TX_BYTES, elapsed);
+				record[RATE_RX_PACKETS] = perSecond(iface, RX_PACKETS, elapsed);
+				record[RATE_TX_PACKETS] = perSecond(iface, TX_PACKETS, elapsed);
+				iface.rates.add(record);
+			}
+			System.arraycopy(iface.counters, 0, iface.previous, 0, COUNTERS);
+			iface.hasPrevious = true;
+			i++;
+		}
+		lastSample = now;
+	}
+
+	private static void closeStatistics(Interface iface) {
+		if (iface.statistics != null) {
+			for (ProcFileReader counter : iface.statistics) {
+				counter.close();
+			}
+			iface.statistics = null;
+		}
+	}
+
+	private static long perSecond(Interface iface, int counter, long elapsed) {
+		long delta = iface.counters[counter] - iface.previous[counter];
+		// in double, delta * 1e9 overflows a long above ~9.2 GB (long gaps in refresh-only mode)
+		return (delta < 0) ? 0 : (long) (delta * 1e9 / elapsed); // negative: counter reset
+	}
+
+	private void sampleSysfs(boolean probe) {
+		if (probe) {
+			String[] names = new File(sysfsDir).list();
+			if (names != null) {
+				for (String name : names) {
+					String dir = sysfsDir + "/" + name + "/statistics";
+					if (!new File(dir).isDirectory()) {
+						continue; // like bonding_masters
+					}
+					Interface iface = find(name);
+					if (iface.statistics == null) {
+						iface.statistics = new ProcFileReader[COUNTERS];
+						for (int i = 0; i < COUNTERS; i++) {
+							iface.statistics[i] = new ProcFileReader(dir + "/" + SYSFS_COUNTERS[i]);
+						}
+					}
+				}
+			}
+		}
+		for (Interface iface : interfaces) {
+			if (iface.statistics == null) {
+				continue;
+			}
+			try {
+				for (int i = 0; i < COUNTERS; i++) {
+					ProcFileReader counter = iface.statistics[i];
+					counter.read();
+					iface.counters[i] = ProcParser.parseLong(counter.getBuffer(), 0, counter.getLength());
+				}
+				iface.present = true;
+			} catch (IOException e) {
+				// the interface is gone, look for it again on the next probe
+				closeStatistics(iface);
+			}
+		}
+	}
+
+	public void onField(int line, int field, ByteBuffer buffer, int start, int end) {
+		if (line < 2) {
+			return; // two header lines
+		}
+		if (field == 0) {
+			parsing = find(buffer, start, end, line - 2);
+			parsing.present = true;
+			return;
+		}
+		for (int i = 0; i < COUNTERS; i++) {
+			if (PROC_FIELDS[i] == field) {
+				parsing.counters[i] = ProcParser.parseLong(buffer, start, end);
+				break;
+			}
+		}
+	}
+
+	public void onLineEnd(int line, int fieldCount) {
+	}
+
+	@Override
+	protected ConfigList buildSection() {
+		ConfigList networks = new ConfigList(getName(), "Current rates, then totals since the interface came up.");
+		List<ConfigBase> items = networks.getItems();
+		for (Interface iface : interfaces) {
+			if (!iface.present) {
+				continue;
+			}
+			long[] c = iface.counters;
+			String rates = "";
+			if (iface.rates.size() > 0) {
+				rates = String.format(Utils.locale, "rx %s/s (%d pkt/s), tx %s/s (%d pkt/s); ",
+						Utils.formatBytes(iface.rates.getLatest(RATE_RX_BYTES)), iface.rates.getLatest(RATE_RX_PACKETS),
+						Utils.formatBytes(iface.rates.getLatest(RATE_TX_BYTES)), iface.rates.getLatest(RATE_TX_PACKETS));
+			}
+			items.add(new Config(iface.name, rates
+					+ String.format(Utils.locale, "rx %s, tx %s, errors %d/%d, dropped %d/%d",
+							Utils.formatBytes(c[RX_BYTES]), Utils.formatBytes(c[TX_BYTES]), c[RX_ERRORS], c[TX_ERRORS],
+							c[RX_DROPPED], c[TX_DROPPED])));
+		}
+		return networks;
+	}
+}
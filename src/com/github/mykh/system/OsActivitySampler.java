@@ -0,0 +1,210 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.IFieldHandler;
+import com.github.mykh.common.LongRingBuffer;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.Utils;
+
+/**
+ * Uptime, idle time and load from /proc/uptime and /proc/loadavg, and the per
+ * CPU run queue wait from /proc/schedstat. The wait is the time runnable tasks
+ * spent waiting for a CPU, reported per second of wall time and per time
+ * slice between samples. Kernels without CONFIG_SCHEDSTATS have no
+ * schedstat; it is not retried then.
+ */
+public class OsActivitySampler extends PeriodicSampler implements IFieldHandler {
+	public static final int HISTORY_SIZE = 60;
+
+	// columns of the run queue history
+	private static final int WAIT_PER_SECOND = 0; // µs of wait per second
+	private static final int WAIT_PER_SLICE = 1; // µs per time slice
+
+	private static class Cpu {
+		long runDelay; // ns since boot
+		long timeslices;
+		long previousRunDelay;
+		long previousTimeslices;
+		boolean present;
+		boolean hasPrevious;
+		final LongRingBuffer history = new LongRingBuffer(HISTORY_SIZE, 2);
+	}
+
+	private final ProcFileReader uptimeReader;
+	private final ProcFileReader loadReader;
+	private final ProcFileReader schedReader;
+	private boolean schedAvailable = true;
+	private ProcFileReader parsing;
+	private Cpu parsingCpu;
+
+	private long uptime = -1; // 1/100 s
+	private long idle = -1; // 1/100 s, summed over all CPUs
+	private final long[] load = { -1, -1, -1 }; // 1/100
+	private long runningTasks = -1;
+	private long totalTasks = -1;
+	private Cpu[] cpus = new Cpu[0];
+	private final long[] record = new long[2];
+	private long lastSample = 0; // ns
+
+	/** @param procDir normally /proc */
+	public OsActivitySampler(String procDir) {
+		super("OS Activity");
+		uptimeReader = new ProcFileReader(procDir + "/uptime");
+		loadReader = new ProcFileReader(procDir + "/loadavg");
+		schedReader = new ProcFileReader(procDir + "/schedstat");
+	}
+
+	public OsActivitySampler() {
+		this("/proc");
+	}
+
+	private void parse(ProcFileReader reader) throws IOException {
+		reader.read();
+		parsing = reader;
+		ProcParser.parseFields(reader, 0, this);
+	}
+
+	@Override
+	protected void sample() throws IOException {
+		long now = System.nanoTime();
+		parse(uptimeReader);
+		parse(loadReader);
+		if (schedAvailable) {
+			for (Cpu cpu : cpus) {
+				cpu.present = false;
+			}
+			try {
+				parse(schedReader);
+			} catch (IOException e) {
+				schedAvailable = false;
+				schedReader.close();
+			}
+			long elapsed = now - lastSample;
+			for (Cpu cpu : cpus) {
+				if (!cpu.present) {
+					cpu.hasPrevious = false;
+					continue;
+				}
+				if (cpu.hasPrevious && elapsed > 0) {
+					long delay = Math.max(0, cpu.runDelay - cpu.previousRunDelay);
+					long slices = cpu.timeslices - cpu.previousTimeslices;
+					record[WAIT_PER_SECOND] = (long) (delay * 1e6 / elapsed); // in double, may overflow
+					record[WAIT_PER_SLICE] = (slices <= 0) ? 0 : delay / slices / 1000;
+					cpu.history.add(record);
+				}
+				cpu.previousRunDelay = cpu.runDelay;
+				cpu.previousTimeslices = cpu.timeslices;
+				cpu.hasPrevious = true;
+			}
+		}
+		lastSample = now;
+	}
+
+	private Cpu getCpu(int index) {
+		if (index >= cpus.length) {
+			Cpu[] grown = new Cpu[index + 1];
+			System.arraycopy(cpus, 0, grown, 0, cpus.length);
+			for (int i = cpus.length; i < grown.length; i++) {
+				grown[i] = new Cpu();
+			}
+			cpus = grown;
+		}
+		return cpus[index];
+	}
+
+	public void onField(int line, int field, ByteBuffer buffer, int start, int end) {
+		if (parsing == uptimeReader) {
+			if (field == 0) {
+				uptime = ProcParser.parseFixed(buffer, start, end, 2);
+			} else if (field == 1) {
+				idle = ProcParser.parseFixed(buffer, start, end, 2);
+			}
+		} else if (parsing == loadReader) {
+			if (field < 3) {
+				load[field] = ProcParser.parseFixed(buffer, start, end, 2);
+			} else if (field == 3) {
+				// "running/total"
+				runningTasks = ProcParser.parseLong(buffer, start, end);
+				int slash = ProcParser.indexOf(buffer, start, end, (byte) '/');
+				totalTasks = (slash < 0) ? -1 : ProcParser.parseLong(buffer, slash + 1, end);
+			}
+		} else {
+			// "cpuN yld_count 0 sched_count sched_goidle ttwu_count ttwu_local cpu_time run_delay pcount"
+			if (field == 0) {
+				parsingCpu = null;
+				if (ProcParser.startsWithAscii(buffer, start, end, "cpu") && ProcParser.isDigits(buffer, start + 3, end)) {
+					parsingCpu = getCpu((int) ProcParser.parseLong(buffer, start + 3, end));
+					parsingCpu.present = true;
+				}
+			} else if (parsingCpu != null) {
+				if (field == 8) {
+					parsingCpu.runDelay = ProcParser.parseLong(buffer, start, end);
+				} else if (field == 9) {
+					parsingCpu.timeslices = ProcParser.parseLong(buffer, start, end);
+				}
+			}
+		}
+	}
+
+	public void onLineEnd(int line, int fieldCount) {
+	}
+
+	private static String formatHundredths(long value) {
+		return String.format(Utils.locale, "%.2f", value / 100.0);
+	}
+
+	@Override
+	protected ConfigList buildSection() {
+		ConfigList section = new ConfigList(getName());
+		List<ConfigBase> items = section.getItems();
+		if (uptime >= 0) {
+			items.add(new Config("Uptime", Utils.formatDuration(uptime * 10)));
+			items.add(new Config("Idle time", Utils.formatDuration(idle * 10), "Summed over all CPUs."));
+		}
+		if (load[0] >= 0) {
+			items.add(new Config("Load average", formatHundredths(load[0]) + " / " + formatHundredths(load[1]) + " / "
+					+ formatHundredths(load[2]), "Over 1, 5 and 15 minutes."));
+			items.add(new Config("Tasks", runningTasks + " running of " + totalTasks));
+		}
+		if (schedAvailable) {
+			ConfigList wait = new ConfigList("Run queue wait",
+					"Time runnable tasks waited for the CPU: per second, per time slice, average over the last "
+							+ HISTORY_SIZE + " samples.");
+			for (int i = 0; i < cpus.length; i++) {
+				LongRingBuffer history = cpus[i].history;
+				if (!cpus[i].present || history.size() == 0) {
+					continue;
+				}
+				wait.getItems().add(new Config("cpu" + i, String.format(Utils.locale,
+						"%.1f ms/s, %d µs/slice (avg %.1f ms/s)", history.getLatest(WAIT_PER_SECOND) / 1000.0,
+						history.getLatest(WAIT_PER_SLICE), history.average(WAIT_PER_SECOND) / 1000.0)));
+			}
+			items.add(wait);
+		}
+		return section;
+	}
+}
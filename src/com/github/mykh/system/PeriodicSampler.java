@@ -0,0 +1,100 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.DaemonThreadFactory;
+import com.github.mykh.common.Utils;
+
+import android.util.Log;
+
+/**
+ * Live section backed by a sampler that runs on a shared scheduler. Samples
+ * and section building are serialized on the sampler instance. When the
+ * sampler is not started, every collect() takes a single sample first.
+ */
+public abstract class PeriodicSampler extends SectionProvider {
+	private static final int SCHEDULER_THREADS = 2;
+	private static ScheduledExecutorService scheduler;
+
+	private ScheduledFuture<?> task;
+	private String lastError;
+
+	private static synchronized ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			scheduler = new ScheduledThreadPoolExecutor(SCHEDULER_THREADS, new DaemonThreadFactory("SysInfo-sampler"));
+		}
+		return scheduler;
+	}
+
+	public PeriodicSampler(String name) {
+		super(name, DEFAULT_TIMEOUT, TTL_LIVE);
+	}
+
+	/** Takes one sample; called on a scheduler thread or from collect(). */
+	protected abstract void sample() throws Exception;
+
+	/** Builds the section from the samples taken so far. */
+	protected abstract ConfigList buildSection();
+
+	public synchronized void start(long period) {
+		stop();
+		task = getScheduler().scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				sampleNow();
+			}
+		}, 0, period, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void stop() {
+		if (task != null) {
+			task.cancel(false);
+			task = null;
+		}
+	}
+
+	public synchronized boolean isRunning() {
+		return task != null;
+	}
+
+	public synchronized void sampleNow() {
+		try {
+			sample();
+			lastError = null;
+		} catch (Exception e) {
+			// Log once per kind of failure, not on every tick.
+			String error = e.toString();
+			if (!error.equals(lastError)) {
+				Log.e(Utils.LOGGER_TAG, getName() + " sampling failed: " + error);
+				lastError = error;
+			}
+		}
+	}
+
+	public synchronized ConfigList collect() {
+		if (task == null) {
+			sampleNow();
+		}
+		return buildSection();
+	}
+}
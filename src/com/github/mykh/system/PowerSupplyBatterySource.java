@@ -0,0 +1,278 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.LongRingBuffer;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.Utils;
+
+/**
+ * Battery source reading /sys/class/power_supply directly, at any rate instead
+ * of whenever the system decides to send a broadcast. The battery and the
+ * external supplies are found once by their "type" file; after that every
+ * tick is one positional read per kept-open node. Current and power are kept
+ * per tick, the {@link BatteryHistory} only gets a record when the level or
+ * the plugged state changes, like with broadcasts.
+ */
+public class PowerSupplyBatterySource extends PeriodicSampler implements IBatterySource {
+	public static final String POWER_SUPPLY_DIR = "/sys/class/power_supply";
+	public static final long DEFAULT_PERIOD = 250; // ms
+	public static final int CURRENT_HISTORY_SIZE = 240; // 1 min at the default period
+
+	// columns of the current history
+	private static final int CURRENT = 0; // µA
+	private static final int POWER = 1; // µW
+
+	private static class Supply {
+		final ProcFileReader online;
+		final int plugged;
+
+		Supply(ProcFileReader online, int plugged) {
+			this.online = online;
+			this.plugged = plugged;
+		}
+	}
+
+	private final String rootDir;
+	private final IClock clock;
+	private boolean discovered = false;
+	private String batteryDir;
+	private String technology;
+	private ProcFileReader capacity;
+	private ProcFileReader voltage; // µV
+	private ProcFileReader current; // µA
+	private ProcFileReader temperature; // tenths of °C
+	private ProcFileReader chargeCounter; // µAh
+	private ProcFileReader status;
+	private ProcFileReader health;
+	private ProcFileReader present;
+	private final List<Supply> supplies = new ArrayList<Supply>();
+
+	private volatile BatterySample sample = BatterySample.EMPTY;
+	private final BatteryHistory history = new BatteryHistory();
+	private final LongRingBuffer currentHistory = new LongRingBuffer(CURRENT_HISTORY_SIZE, 2);
+	private final long[] record = new long[2];
+
+	/**
+	 * @param rootDir normally {@link #POWER_SUPPLY_DIR}
+	 * @param clock normally {@link IClock#ELAPSED_REALTIME}
+	 */
+	public PowerSupplyBatterySource(String rootDir, IClock clock) {
+		super("Power Supply");
+		this.rootDir = rootDir;
+		this.clock = clock;
+	}
+
+	public PowerSupplyBatterySource() {
+		this(POWER_SUPPLY_DIR, IClock.ELAPSED_REALTIME);
+	}
+
+	private static String readString(ProcFileReader reader, String path) {
+		try {
+			reader.read(path);
+			return reader.getString().trim();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static ProcFileReader openIfExists(String path) {
+		return new File(path).exists() ? new ProcFileReader(path) : null;
+	}
+
+	private void discover() {
+		discovered = true;
+		String[] entries = new File(rootDir).list();
+		if (entries == null) {
+			return;
+		}
+		ProcFileReader scratch = new ProcFileReader();
+		for (String entry : entries) {
+			String dir = rootDir + "/" + entry;
+			String type = readString(scratch, dir + "/type");
+			if (type == null) {
+				continue;
+			}
+			if (type.equals("Battery")) {
+				if (batteryDir == null) {
+					batteryDir = dir;
+					technology = readString(scratch, dir + "/technology");
+					capacity = openIfExists(dir + "/capacity");
+					voltage = openIfExists(dir + "/voltage_now");
+					current = openIfExists(dir + "/current_now");
+					temperature = openIfExists(dir + "/temp");
+					chargeCounter = openIfExists(dir + "/charge_counter");
+					status = openIfExists(dir + "/status");
+					health = openIfExists(dir + "/health");
+					present = openIfExists(dir + "/present");
+				}
+			} else if (new File(dir + "/online").exists()) {
+				int plugged;
+				if (type.equals("Mains")) {
+					plugged = android.os.BatteryManager.BATTERY_PLUGGED_AC;
+				} else if (type.startsWith("USB")) {
+					plugged = android.os.BatteryManager.BATTERY_PLUGGED_USB;
+				} else if (type.equals("Wireless")) {
+					plugged = BatterySample.BATTERY_PLUGGED_WIRELESS;
+				} else {
+					continue;
+				}
+				supplies.add(new Supply(new ProcFileReader(dir + "/online"), plugged));
+			}
+		}
+		scratch.close();
+	}
+
+	/** Reads a number from a kept-open node, returns def if it is missing or unreadable. */
+	private static long readLong(ProcFileReader reader, long def) {
+		if (reader == null) {
+			return def;
+		}
+		try {
+			if (reader.read() == 0) {
+				return def;
+			}
+			return ProcParser.parseLong(reader.getBuffer(), 0, reader.getLength());
+		} catch (IOException e) {
+			return def;
+		}
+	}
+
+	/** Returns the index of the matching value, -1 if none matches. */
+	private static int readEnum(ProcFileReader reader, String[] values) {
+		if (reader == null) {
+			return -1;
+		}
+		try {
+			reader.read();
+		} catch (IOException e) {
+			return -1;
+		}
+		ByteBuffer buffer = reader.getBuffer();
+		int end = ProcParser.indexOf(buffer, 0, reader.getLength(), (byte) '\n');
+		end = ProcParser.trimEnd(buffer, 0, (end < 0) ? reader.getLength() : end);
+		for (int i = 0; i < values.length; i++) {
+			if (ProcParser.equalsAscii(buffer, 0, end, values[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static final String[] STATUS_NAMES = { "Charging", "Discharging", "Full", "Not charging", "Unknown" };
+	private static final int[] STATUS_VALUES = { android.os.BatteryManager.BATTERY_STATUS_CHARGING,
+			android.os.BatteryManager.BATTERY_STATUS_DISCHARGING, android.os.BatteryManager.BATTERY_STATUS_FULL,
+			android.os.BatteryManager.BATTERY_STATUS_NOT_CHARGING, android.os.BatteryManager.BATTERY_STATUS_UNKNOWN };
+	private static final String[] HEALTH_NAMES = { "Good", "Overheat", "Dead", "Over voltage", "Unspecified failure",
+			"Cold", "Unknown" };
+	private static final int[] HEALTH_VALUES = { android.os.BatteryManager.BATTERY_HEALTH_GOOD,
+			android.os.BatteryManager.BATTERY_HEALTH_OVERHEAT, android.os.BatteryManager.BATTERY_HEALTH_DEAD,
+			android.os.BatteryManager.BATTERY_HEALTH_OVER_VOLTAGE,
+			android.os.BatteryManager.BATTERY_HEALTH_UNSPECIFIED_FAILURE, BatterySample.BATTERY_HEALTH_COLD,
+			android.os.BatteryManager.BATTERY_HEALTH_UNKNOWN };
+
+	@Override
+	protected void sample() {
+		if (!discovered) {
+			discover();
+		}
+		if (batteryDir == null) {
+			return;
+		}
+		int plugged = 0;
+		for (Supply supply : supplies) {
+			if (readLong(supply.online, 0) != 0) {
+				plugged = supply.plugged;
+				break;
+			}
+		}
+		int statusIndex = readEnum(status, STATUS_NAMES);
+		int healthIndex = readEnum(health, HEALTH_NAMES);
+		long presentValue = readLong(present, -1);
+		long microVolts = readLong(voltage, -1000);
+		BatterySample previous = sample;
+		BatterySample next = new BatterySample(clock.now(), (healthIndex < 0) ? -1
+				: HEALTH_VALUES[healthIndex], -1, (int) readLong(capacity, -1), plugged,
+				(presentValue < 0) ? null : Boolean.valueOf(presentValue != 0), 100, (statusIndex < 0) ? -1
+						: STATUS_VALUES[statusIndex], technology, (int) readLong(temperature, -1),
+				(int) (microVolts / 1000), (int) readLong(current, BatterySample.UNKNOWN), (int) readLong(
+						chargeCounter, BatterySample.UNKNOWN));
+		sample = next;
+		if (next.getLevel() != previous.getLevel() || next.getPlugged() != previous.getPlugged()) {
+			history.add(next);
+		}
+		if (next.getCurrent() != BatterySample.UNKNOWN) {
+			record[CURRENT] = next.getCurrent();
+			record[POWER] = (next.getVoltage() < 0) ? 0 : (long) next.getCurrent() * next.getVoltage() / 1000;
+			currentHistory.add(record);
+		}
+	}
+
+	/**
+	 * Takes a sample first if there is none yet, e.g. while the Power Supply
+	 * section is still being collected in parallel; otherwise the Battery
+	 * section could fall back to the broadcast for the first report.
+	 */
+	public boolean isAvailable() {
+		if (sample == BatterySample.EMPTY) {
+			sampleNow();
+		}
+		return sample != BatterySample.EMPTY;
+	}
+
+	public BatterySample getSample() {
+		return sample;
+	}
+
+	public BatteryHistory getHistory() {
+		return history;
+	}
+
+	private static String formatMilli(long micro, String unit) {
+		return String.format(Utils.locale, "%.1f %s", micro / 1000.0, unit);
+	}
+
+	@Override
+	protected ConfigList buildSection() {
+		ConfigList section = new ConfigList(getName(), (batteryDir != null) ? batteryDir : "No battery in " + rootDir);
+		List<ConfigBase> items = section.getItems();
+		BatterySample latest = sample;
+		items.add(new Config("Current", latest.getCurrentStr()));
+		if (currentHistory.size() > 0) {
+			items.add(new Config("Current min/avg/max", formatMilli(currentHistory.min(CURRENT), "mA") + " / "
+					+ formatMilli(currentHistory.average(CURRENT), "mA") + " / "
+					+ formatMilli(currentHistory.max(CURRENT), "mA"), "Over the last " + currentHistory.size()
+					+ " samples."));
+			items.add(new Config("Power", formatMilli(currentHistory.getLatest(POWER), "mW")));
+			items.add(new Config("Power avg", formatMilli(currentHistory.average(POWER), "mW")));
+		}
+		items.add(new Config("Voltage", latest.getVoltageStr()));
+		items.add(new Config("Charge counter", latest.getChargeCounterStr()));
+		return section;
+	}
+}
@@ -0,0 +1,347 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.FieldAccessor;
+import com.github.mykh.common.IFieldHandler;
+import com.github.mykh.common.LongRingBuffer;
+import com.github.mykh.common.MethodAccessor;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.ReflectionCache;
+import com.github.mykh.common.Utils;
+
+import android.util.Log;
+
+/**
+ * Pressure stall information from /proc/pressure/{memory,cpu,io}: the some/full
+ * averages and totals, plus stall events delivered to
+ * {@link IPressureListener}s.
+ * <p>
+ * Events come from kernel PSI triggers when possible: every trigger is written
+ * to its pressure file and a thread sleeps in poll() until the kernel reports
+ * POLLPRI, which costs nothing while the device is idle. poll() on a file
+ * descriptor is only reachable through android.system.Os (API 21), which is
+ * looked up by reflection. Without it, or when the kernel refuses the trigger
+ * (creating one may need CAP_SYS_RESOURCE), the monitor falls back to sampling
+ * the totals and checks the same thresholds itself.
+ */
+public class PressureMonitor extends PeriodicSampler implements IFieldHandler {
+	public static final int MEMORY = 0;
+	public static final int CPU = 1;
+	public static final int IO = 2;
+	private static final String[] RESOURCES = { "memory", "cpu", "io" };
+
+	// columns of values[resource], "some" first, then "full"
+	private static final int AVG10 = 0;
+	private static final int AVG60 = 1;
+	private static final int AVG300 = 2;
+	private static final int TOTAL = 3; // us
+	private static final int FULL = 4;
+
+	public static final int EVENT_HISTORY = 32;
+	private static final int POLL_TIMEOUT = 1000; // ms, how often the trigger thread checks for stop
+
+	private static class Trigger {
+		final int resource;
+		final boolean full;
+		final long stall; // us
+		final long window; // us
+		long windowStart; // ns, polling fallback only
+		long windowStartTotal;
+
+		Trigger(int resource, boolean full, long stall, long window) {
+			this.resource = resource;
+			this.full = full;
+			this.stall = stall;
+			this.window = window;
+		}
+	}
+
+	private final String dir;
+	private final ProcFileReader[] readers = new ProcFileReader[RESOURCES.length];
+	private final long[][] values = new long[RESOURCES.length][2 * FULL];
+	private final boolean[] hasFull = new boolean[RESOURCES.length];
+	private final List<Trigger> triggers = new ArrayList<Trigger>();
+	private final CopyOnWriteArrayList<IPressureListener> listeners = new CopyOnWriteArrayList<IPressureListener>();
+	private final LongRingBuffer events = new LongRingBuffer(EVENT_HISTORY, 3); // time, resource, full
+	private final long[] event = new long[3];
+	private int parsing;
+	private int rowOffset;
+	private volatile Thread triggerThread;
+	private boolean polling = false;
+	private long fallbackPeriod;
+
+	/** @param dir normally /proc/pressure */
+	public PressureMonitor(String dir) {
+		super("Pressure");
+		this.dir = dir;
+		for (int i = 0; i < RESOURCES.length; i++) {
+			readers[i] = new ProcFileReader(dir + "/" + RESOURCES[i]);
+		}
+	}
+
+	public PressureMonitor() {
+		this("/proc/pressure");
+	}
+
+	public boolean isSupported() {
+		return new File(dir).isDirectory();
+	}
+
+	/**
+	 * Adds a trigger firing when tasks stall for stall us within window us. Has
+	 * to be called before {@link #startMonitoring}.
+	 */
+	public synchronized void addTrigger(int resource, boolean full, long stall, long window) {
+		triggers.add(new Trigger(resource, full, stall, window));
+	}
+
+	public void addListener(IPressureListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(IPressureListener listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	protected void sample() throws IOException {
+		if (!isSupported()) {
+			return;
+		}
+		for (int i = 0; i < RESOURCES.length; i++) {
+			readers[i].read();
+			parsing = i;
+			ProcParser.parseFields(readers[i], 0, this);
+		}
+		if (polling) {
+			checkTriggers();
+		}
+	}
+
+	public void onField(int line, int field, ByteBuffer buffer, int start, int end) {
+		// some avg10=0.00 avg60=0.00 avg300=0.00 total=0
+		if (field == 0) {
+			rowOffset = ProcParser.equalsAscii(buffer, start, end, "full") ? FULL : 0;
+			if (rowOffset == FULL) {
+				hasFull[parsing] = true;
+			}
+			return;
+		}
+		int equals = ProcParser.indexOf(buffer, start, end, (byte) '=');
+		if (equals < 0 || field > 4) {
+			return;
+		}
+		int column = field - 1;
+		values[parsing][rowOffset + column] = (column == TOTAL) ? ProcParser.parseLong(buffer, equals + 1, end)
+				: ProcParser.parseFixed(buffer, equals + 1, end, 2);
+	}
+
+	public void onLineEnd(int line, int fieldCount) {
+	}
+
+	/** Polling fallback: the same check the kernel does for a trigger. */
+	private void checkTriggers() {
+		long now = System.nanoTime();
+		for (int i = 0; i < triggers.size(); i++) {
+			Trigger trigger = triggers.get(i);
+			long total = values[trigger.resource][(trigger.full ? FULL : 0) + TOTAL];
+			if (trigger.windowStart == 0) {
+				trigger.windowStart = now;
+				trigger.windowStartTotal = total;
+				continue;
+			}
+			boolean stalled = (total - trigger.windowStartTotal) >= trigger.stall;
+			if (stalled || TimeUnit.NANOSECONDS.toMicros(now - trigger.windowStart) >= trigger.window) {
+				trigger.windowStart = now;
+				trigger.windowStartTotal = total;
+			}
+			if (stalled) {
+				fire(trigger);
+			}
+		}
+	}
+
+	private synchronized void fire(Trigger trigger) {
+		long time = System.currentTimeMillis();
+		event[0] = time;
+		event[1] = trigger.resource;
+		event[2] = trigger.full ? 1 : 0;
+		events.add(event);
+		for (IPressureListener listener : listeners) {
+			listener.onPressureEvent(trigger.resource, trigger.full, time);
+		}
+	}
+
+	/**
+	 * Starts delivering stall events: through kernel triggers if possible,
+	 * otherwise by sampling every fallbackPeriod ms.
+	 */
+	public synchronized void startMonitoring(long fallbackPeriod) {
+		if (triggerThread != null || isRunning() || !isSupported()) {
+			return;
+		}
+		this.fallbackPeriod = fallbackPeriod;
+		if (!triggers.isEmpty() && startKernelTriggers()) {
+			return;
+		}
+		polling = true;
+		start(fallbackPeriod);
+	}
+
+	public synchronized void stopMonitoring() {
+		stop();
+		polling = false;
+		triggerThread = null; // the thread exits after its current poll()
+	}
+
+	private boolean startKernelTriggers() {
+		final Class<?> os = ReflectionCache.findClass("android.system.Os");
+		final Class<?> pollfdClass = ReflectionCache.findClass("android.system.StructPollfd");
+		if (os == null || pollfdClass == null) {
+			return false;
+		}
+		final MethodAccessor open = ReflectionCache.method(os, "open", String.class, int.class, int.class);
+		final MethodAccessor write = ReflectionCache.method(os, "write", java.io.FileDescriptor.class, byte[].class,
+				int.class, int.class);
+		final MethodAccessor poll = ReflectionCache.method(os, "poll", Array.newInstance(pollfdClass, 0).getClass(),
+				int.class);
+		final FieldAccessor pollfdFd = ReflectionCache.field(pollfdClass, "fd");
+		final FieldAccessor pollfdEvents = ReflectionCache.field(pollfdClass, "events");
+		final FieldAccessor pollfdRevents = ReflectionCache.field(pollfdClass, "revents");
+		final int oRdwr = Utils.getClassFieldInt("android.system.OsConstants", "O_RDWR", -1);
+		final int oNonblock = Utils.getClassFieldInt("android.system.OsConstants", "O_NONBLOCK", -1);
+		final int pollPri = Utils.getClassFieldInt("android.system.OsConstants", "POLLPRI", -1);
+		if (oRdwr < 0 || oNonblock < 0 || pollPri < 0 || !poll.isAvailable()) {
+			return false;
+		}
+
+		final Object pollfds = Array.newInstance(pollfdClass, triggers.size());
+		final Object[] fds = new Object[triggers.size()]; // java.io.FileDescriptor
+		try {
+			for (int i = 0; i < triggers.size(); i++) {
+				Trigger trigger = triggers.get(i);
+				fds[i] = open.invokeOrThrow(null, dir + "/" + RESOURCES[trigger.resource], oRdwr | oNonblock, 0);
+				byte[] spec = ((trigger.full ? "full " : "some ") + trigger.stall + " " + trigger.window + "\0")
+						.getBytes();
+				write.invokeOrThrow(null, fds[i], spec, 0, spec.length);
+				Object pollfd = pollfdClass.newInstance();
+				pollfdFd.set(pollfd, fds[i]);
+				pollfdEvents.set(pollfd, (short) pollPri);
+				Array.set(pollfds, i, pollfd);
+			}
+		} catch (Exception e) {
+			Log.w(Utils.LOGGER_TAG, "PSI triggers are not available, polling instead: " + e);
+			closeTriggers(fds);
+			return false;
+		}
+
+		triggerThread = new Thread(new Runnable() {
+			public void run() {
+				try {
+					while (triggerThread == Thread.currentThread()) {
+						int ready = (Integer) poll.invokeOrThrow(null, pollfds, POLL_TIMEOUT);
+						for (int i = 0; ready > 0 && i < triggers.size(); i++) {
+							if ((pollfdRevents.getInt(Array.get(pollfds, i), 0) & pollPri) != 0) {
+								fire(triggers.get(i));
+							}
+						}
+					}
+				} catch (Exception e) {
+					Log.e(Utils.LOGGER_TAG, "PSI trigger poll failed: " + e);
+				} finally {
+					closeTriggers(fds);
+					onTriggerThreadExit();
+				}
+			}
+		}, "SysInfo-psi");
+		triggerThread.setDaemon(true);
+		triggerThread.start();
+		return true;
+	}
+
+	/** Falls back to polling if the trigger thread died while still monitoring. */
+	private synchronized void onTriggerThreadExit() {
+		if (triggerThread == Thread.currentThread()) {
+			triggerThread = null;
+			polling = true;
+			start(fallbackPeriod);
+		}
+	}
+
+	private static void closeTriggers(Object[] fds) {
+		MethodAccessor close = ReflectionCache.method(ReflectionCache.findClass("android.system.Os"), "close",
+				java.io.FileDescriptor.class);
+		for (Object fd : fds) {
+			if (fd != null) {
+				try {
+					close.invokeOrThrow(null, fd);
+				} catch (Exception e) {
+					// nothing to do
+				}
+			}
+		}
+	}
+
+	private String describe(int resource, int offset) {
+		long[] row = values[resource];
+		return String.format(Utils.locale, "avg10 %.2f%%, avg60 %.2f%%, avg300 %.2f%%, total %d ms",
+				row[offset + AVG10] / 100.0, row[offset + AVG60] / 100.0, row[offset + AVG300] / 100.0,
+				row[offset + TOTAL] / 1000);
+	}
+
+	@Override
+	protected ConfigList buildSection() {
+		ConfigList pressure = new ConfigList(getName(),
+				"Share of time in which some (or all) runnable tasks were stalled waiting for the resource.");
+		List<ConfigBase> items = pressure.getItems();
+		if (!isSupported()) {
+			items.add(new Config("PSI", "not supported by this kernel"));
+			return pressure;
+		}
+		for (int i = 0; i < RESOURCES.length; i++) {
+			items.add(new Config(RESOURCES[i] + " some", describe(i, 0)));
+			if (hasFull[i]) {
+				items.add(new Config(RESOURCES[i] + " full", describe(i, FULL)));
+			}
+		}
+		String mode = (triggerThread != null) ? "kernel triggers" : (polling ? "polling" : "off");
+		items.add(new Config("Stall events", mode));
+		ConfigList recent = new ConfigList("Recent stall events");
+		for (int i = events.size() - 1; i >= 0; i--) {
+			recent.getItems().add(new Config(new Date(events.get(i, 0)).toString(), RESOURCES[(int) events.get(i, 1)]
+					+ ((events.get(i, 2) != 0) ? " full" : " some")));
+		}
+		items.add(recent);
+		return pressure;
+	}
+}
@@ -0,0 +1,412 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.DaemonThreadFactory;
+import com.github.mykh.common.IKeyValueHandler;
+import com.github.mykh.common.MethodAccessor;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.ReflectionCache;
+import com.github.mykh.common.Utils;
+
+/**
+ * Table of all processes built from /proc/[pid]/stat, statm, status and
+ * oom_score_adj. The PIDs are split into chunks read in parallel, every worker
+ * thread reusing its own buffer. Data is kept in columns (one primitive array
+ * per attribute) sorted by pid and compared with the previous scan: stat is
+ * read for every process to get the CPU time, status only for new processes,
+ * statm and oom_score_adj only for processes that used CPU or changed state
+ * since the last scan.
+ */
+public class ProcessTable extends PeriodicSampler {
+	public static final String PROC_DIR = "/proc";
+	public static final int TOP_COUNT = 15;
+	private static final long PAGE_SIZE_KB = sysconf("_SC_PAGESIZE", 4 * Utils.KB) / Utils.KB;
+	private static final long USER_HZ = sysconf("_SC_CLK_TCK", 100);
+
+	/** Os.sysconf() of the OsConstants field name, fallback before API 21 or if the call fails. */
+	private static long sysconf(String name, long fallback) {
+		Class<?> os = ReflectionCache.findClass("android.system.Os");
+		int constant = Utils.getClassFieldInt("android.system.OsConstants", name, -1);
+		if (os == null || constant < 0) {
+			return fallback;
+		}
+		MethodAccessor sysconf = ReflectionCache.method(os, "sysconf", int.class);
+		try {
+			long value = (Long) sysconf.invokeOrThrow(null, constant);
+			return (value > 0) ? value : fallback;
+		} catch (Exception e) {
+			return fallback;
+		}
+	}
+
+	private static class Table {
+		int count = 0;
+		int[] pids = new int[0];
+		String[] names;
+		byte[] states;
+		long[] rssKb;
+		long[] cpuTicks; // utime + stime
+		long[] cpuDelta; // since the previous scan
+		long[] startTimes;
+		int[] oomScoreAdj;
+		int[] uids;
+		boolean[] valid;
+
+		void ensureCapacity(int capacity) {
+			if (pids.length >= capacity) {
+				return;
+			}
+			capacity = Math.max(capacity, pids.length * 2);
+			// rows are refilled by every scan, nothing to copy
+			pids = new int[capacity];
+			names = new String[capacity];
+			states = new byte[capacity];
+			rssKb = new long[capacity];
+			cpuTicks = new long[capacity];
+			cpuDelta = new long[capacity];
+			startTimes = new long[capacity];
+			oomScoreAdj = new int[capacity];
+			uids = new int[capacity];
+			valid = new boolean[capacity];
+		}
+
+		void copyRow(int from, int to) {
+			pids[to] = pids[from];
+			names[to] = names[from];
+			states[to] = states[from];
+			rssKb[to] = rssKb[from];
+			cpuTicks[to] = cpuTicks[from];
+			cpuDelta[to] = cpuDelta[from];
+			startTimes[to] = startTimes[from];
+			oomScoreAdj[to] = oomScoreAdj[from];
+			uids[to] = uids[from];
+		}
+	}
+
+	private static class Worker implements IKeyValueHandler {
+		final ProcFileReader reader = new ProcFileReader();
+		final StringBuilder path = new StringBuilder(32);
+		final String procDir;
+		final String oomFile;
+		String name;
+		int uid;
+
+		Worker(String procDir, String oomFile) {
+			this.procDir = procDir;
+			this.oomFile = oomFile;
+		}
+
+		boolean read(int pid, String file) {
+			path.setLength(0);
+			path.append(procDir).append('/').append(pid).append('/').append(file);
+			try {
+				reader.read(path.toString());
+				return true;
+			} catch (IOException e) {
+				return false; // the process has exited
+			}
+		}
+
+		public void onKeyValue(ByteBuffer buffer, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+			if (ProcParser.equalsAscii(buffer, keyStart, keyEnd, "Name")) {
+				name = ProcParser.toString(buffer, valueStart, valueEnd);
+			} else if (ProcParser.equalsAscii(buffer, keyStart, keyEnd, "Uid")) {
+				uid = (int) ProcParser.parseLong(buffer, valueStart, valueEnd);
+			}
+		}
+	}
+
+	private final String procDir;
+	private final String oomFile;
+	private final int threads;
+	private final ExecutorService executor;
+	private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>() {
+		@Override
+		protected Worker initialValue() {
+			return new Worker(procDir, oomFile);
+		}
+	};
+	private Table current = new Table();
+	private Table scratch = new Table();
+	private int[] pidScratch = new int[0];
+	private long scanStart = 0; // ns
+	private long interval = 0; // ns between the last two scans
+	private long scanDuration = 0; // ns
+
+	/** @param procDir normally {@link #PROC_DIR} */
+	public ProcessTable(String procDir) {
+		super("Processes");
+		this.procDir = procDir;
+		oomFile = new File(procDir + "/self/oom_score_adj").exists() ? "oom_score_adj" : "oom_adj";
+		threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+		executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("SysInfo-proc"));
+	}
+
+	public ProcessTable() {
+		this(PROC_DIR);
+	}
+
+	@Override
+	protected void sample() throws Exception {
+		long start = System.nanoTime();
+		String[] entries = new File(procDir).list();
+		if (entries == null) {
+			throw new IOException("Can not list " + procDir);
+		}
+		if (pidScratch.length < entries.length) {
+			pidScratch = new int[entries.length * 2];
+		}
+		int count = 0;
+		for (String entry : entries) {
+			if (entry.length() > 0 && entry.charAt(0) >= '0' && entry.charAt(0) <= '9') {
+				pidScratch[count++] = Integer.parseInt(entry);
+			}
+		}
+		Arrays.sort(pidScratch, 0, count);
+
+		// Scan into the spare table, current stays intact until the scan succeeded.
+		final Table cur = scratch;
+		final Table prev = current;
+		cur.ensureCapacity(count);
+		cur.count = count;
+		System.arraycopy(pidScratch, 0, cur.pids, 0, count);
+
+		int chunkSize = Math.max(16, (count + threads * 4 - 1) / (threads * 4));
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (int from = 0; from < count; from += chunkSize) {
+			final int chunkFrom = from;
+			final int chunkTo = Math.min(count, from + chunkSize);
+			futures.add(executor.submit(new Callable<Void>() {
+				public Void call() {
+					Worker worker = workers.get();
+					for (int i = chunkFrom; i < chunkTo; i++) {
+						cur.valid[i] = scanProcess(worker, cur, prev, i);
+					}
+					return null;
+				}
+			}));
+		}
+		boolean scanned = false;
+		try {
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+			scanned = true;
+		} finally {
+			if (!scanned) {
+				// Workers are not interrupted, they may still write into cur.
+				for (Future<Void> future : futures) {
+					future.cancel(false);
+				}
+				scratch = new Table();
+			}
+		}
+
+		int valid = 0;
+		for (int i = 0; i < cur.count; i++) {
+			if (cur.valid[i]) {
+				if (valid != i) {
+					cur.copyRow(i, valid);
+				}
+				valid++;
+			}
+		}
+		cur.count = valid;
+		scratch = current;
+		current = cur;
+		interval = (scanStart == 0) ? 0 : start - scanStart;
+		scanStart = start;
+		scanDuration = System.nanoTime() - start;
+	}
+
+	private static boolean scanProcess(Worker worker, Table cur, Table prev, int i) {
+		int pid = cur.pids[i];
+		if (!worker.read(pid, "stat")) {
+			return false;
+		}
+		ByteBuffer buffer = worker.reader.getBuffer();
+		int length = worker.reader.getLength();
+		// "pid (comm) state ...", comm may contain spaces and parentheses
+		int commEnd = length - 1;
+		while (commEnd >= 0 && buffer.get(commEnd) != ')') {
+			commEnd--;
+		}
+		if (commEnd < 0) {
+			return false;
+		}
+		byte state = '?';
+		long ticks = 0;
+		long startTime = 0;
+		long rssPages = 0;
+		int field = 0;
+		int pos = commEnd + 1;
+		while (field <= 21) {
+			pos = ProcParser.skipSpaces(buffer, pos, length);
+			int start = pos;
+			while (pos < length && buffer.get(pos) != ' ' && buffer.get(pos) != '\n') {
+				pos++;
+			}
+			if (start == pos) {
+				break;
+			}
+			switch (field) {
+			case 0:
+				state = buffer.get(start);
+				break;
+			case 11: // utime
+			case 12: // stime
+				ticks += ProcParser.parseLong(buffer, start, pos);
+				break;
+			case 19:
+				startTime = ProcParser.parseLong(buffer, start, pos);
+				break;
+			case 21:
+				rssPages = ProcParser.parseLong(buffer, start, pos);
+				break;
+			}
+			field++;
+		}
+		cur.states[i] = state;
+		cur.cpuTicks[i] = ticks;
+		cur.startTimes[i] = startTime;
+
+		int p = Arrays.binarySearch(prev.pids, 0, prev.count, pid);
+		if (p >= 0 && prev.startTimes[p] == startTime) {
+			cur.names[i] = prev.names[p];
+			cur.uids[i] = prev.uids[p];
+			cur.cpuDelta[i] = ticks - prev.cpuTicks[p];
+			if (cur.cpuDelta[i] == 0 && prev.states[p] == state) {
+				cur.rssKb[i] = prev.rssKb[p];
+				cur.oomScoreAdj[i] = prev.oomScoreAdj[p];
+				return true;
+			}
+		} else {
+			// new process, or the pid has been reused
+			cur.cpuDelta[i] = 0;
+			worker.name = null;
+			worker.uid = -1;
+			if (worker.read(pid, "status")) {
+				ProcParser.parseKeyValues(worker.reader, worker);
+			}
+			if (worker.name == null) {
+				int commStart = ProcParser.indexOf(buffer, 0, commEnd, (byte) '(');
+				worker.name = ProcParser.toString(buffer, commStart + 1, commEnd);
+			}
+			cur.names[i] = worker.name;
+			cur.uids[i] = worker.uid;
+		}
+
+		cur.rssKb[i] = rssPages * PAGE_SIZE_KB;
+		if (worker.read(pid, "statm")) {
+			ByteBuffer statm = worker.reader.getBuffer();
+			int statmLength = worker.reader.getLength();
+			// size resident shared ...
+			int residentStart = ProcParser.indexOf(statm, 0, statmLength, (byte) ' ');
+			if (residentStart > 0) {
+				cur.rssKb[i] = ProcParser.parseLong(statm, residentStart + 1, statmLength) * PAGE_SIZE_KB;
+			}
+		}
+		cur.oomScoreAdj[i] = 0;
+		if (worker.read(pid, worker.oomFile)) {
+			cur.oomScoreAdj[i] = (int) ProcParser.parseLong(worker.reader.getBuffer(), 0, worker.reader.getLength());
+		}
+		return true;
+	}
+
+	public synchronized int getProcessCount() {
+		return current.count;
+	}
+
+	/** @return indexes of the rows with the largest values, largest first */
+	private static int[] top(long[] values, int count, int limit) {
+		int[] result = new int[Math.min(limit, count)];
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			int pos = size;
+			while (pos > 0 && values[result[pos - 1]] < values[i]) {
+				pos--;
+			}
+			if (pos < result.length) {
+				int last = Math.min(size, result.length - 1);
+				System.arraycopy(result, pos, result, pos + 1, last - pos);
+				result[pos] = i;
+				if (size < result.length) {
+					size++;
+				}
+			}
+		}
+		return result;
+	}
+
+	private Config describe(Table table, int i) {
+		String cpu = (interval == 0) ? "-" : String.format(Utils.locale, "%.1f%%", table.cpuDelta[i] * 100.0
+				* 1000000000L / USER_HZ / interval);
+		return new Config(table.pids[i] + " " + table.names[i], String.format(Utils.locale,
+				"state %c, CPU %s, RSS %.1f MB, oom_score_adj %d, uid %d", (char) table.states[i], cpu,
+				table.rssKb[i] / (double) Utils.KB, table.oomScoreAdj[i], table.uids[i]));
+	}
+
+	@Override
+	protected ConfigList buildSection() {
+		Table table = current;
+		int running = 0;
+		for (int i = 0; i < table.count; i++) {
+			if (table.states[i] == 'R') {
+				running++;
+			}
+		}
+		ConfigList processes = new ConfigList(getName());
+		List<ConfigBase> items = processes.getItems();
+		items.add(new Config("Count", Integer.toString(table.count)));
+		items.add(new Config("Running", Integer.toString(running)));
+		items.add(new Config("Scan time", String.format(Utils.locale, "%.2f ms", scanDuration / 1000000.0)));
+
+		ConfigList byCpu = new ConfigList("Top by CPU");
+		for (int i : top(table.cpuDelta, table.count, TOP_COUNT)) {
+			byCpu.getItems().add(describe(table, i));
+		}
+		items.add(byCpu);
+		ConfigList byRss = new ConfigList("Top by RSS");
+		for (int i : top(table.rssKb, table.count, TOP_COUNT)) {
+			byRss.getItems().add(describe(table, i));
+		}
+		items.add(byRss);
+		return processes;
+	}
+
+	public void shutdown() {
+		stop();
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,95 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.LazyConfigList;
+
+/**
+ * Keeps collected sections until their provider's TTL expires. Cached
+ * sections are sealed and shared between reports, so they must not be
+ * modified. Thread safe.
+ */
+public class SectionCache {
+	private static class Entry {
+		final ConfigList section;
+		final long expires; // ms, System.nanoTime() based
+
+		Entry(ConfigList section, long expires) {
+			this.section = section;
+			this.expires = expires;
+		}
+	}
+
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	private static long now() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+	}
+
+	/**
+	 * @return the cached section or null if there is none, it has expired or
+	 *         it is a lazy section that failed when it was rendered
+	 */
+	public ConfigList get(ISectionProvider provider) {
+		Entry entry = entries.get(provider.getName());
+		if (entry == null) {
+			return null;
+		}
+		if (now() >= entry.expires || isFailedLazy(entry.section)) {
+			entries.remove(provider.getName(), entry);
+			return null;
+		}
+		return entry.section;
+	}
+
+	/** True for a lazy section that has not produced its items yet; asking for its state would do so. */
+	static boolean isPending(ConfigList section) {
+		return (section instanceof LazyConfigList) && !((LazyConfigList) section).isEvaluated();
+	}
+
+	private static boolean isFailedLazy(ConfigList section) {
+		return (section instanceof LazyConfigList) && ((LazyConfigList) section).isEvaluated()
+				&& section.getState() != ConfigList.State.OK;
+	}
+
+	/**
+	 * Seals and stores section if the provider's data is not live and it is
+	 * OK. A lazy section is stored unevaluated; its state is checked by
+	 * {@link #get} once it has been rendered.
+	 */
+	public void put(ISectionProvider provider, ConfigList section) {
+		long ttl = provider.getTtl();
+		if (ttl <= ISectionProvider.TTL_LIVE) {
+			return;
+		}
+		if (!isPending(section) && section.getState() != ConfigList.State.OK) {
+			return;
+		}
+		section.seal();
+		long expires = (ttl == ISectionProvider.TTL_STATIC) ? Long.MAX_VALUE : now() + ttl;
+		entries.put(provider.getName(), new Entry(section, expires));
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+}
@@ -0,0 +1,227 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.DaemonThreadFactory;
+import com.github.mykh.common.ISectionSink;
+
+/**
+ * Runs section providers in parallel on a bounded pool. Every section has its
+ * own deadline counted from the moment its task starts running, so a section
+ * is never timed out by the time it spent waiting in the queue; a section
+ * that is still queued after its timeout is dropped. The whole report takes
+ * about as long as the slowest section (or its timeout), not the sum of all
+ * of them. Sections are delivered in provider order, each one as soon as it
+ * and all sections before it are done; the ones that did not finish in time
+ * or threw are delivered empty with the corresponding state.
+ * <p>
+ * Workers are never interrupted, a blocked read can not be interrupted anyway
+ * and an interrupt would close the channels of shared readers. A worker that
+ * timed out is abandoned and the pool gets an extra thread until it returns,
+ * up to {@link #MAX_ABANDONED}, so stuck providers do not starve the others.
+ * <p>
+ * Sections that are still valid in the {@link SectionCache} are delivered
+ * without calling their provider.
+ */
+public class SectionCollector {
+	public static final int DEFAULT_THREADS = 4;
+	public static final int MAX_ABANDONED = 4;
+
+	private static final int RUNNING = 0;
+	private static final int DONE = 1;
+	private static final int ABANDONED = 2;
+
+	private final ThreadPoolExecutor executor;
+	private final SectionCache cache;
+	private final int threads;
+	private int abandoned = 0;
+
+	private class Task implements Callable<ConfigList> {
+		final ISectionProvider provider;
+		final CountDownLatch started = new CountDownLatch(1);
+		final AtomicInteger state = new AtomicInteger(RUNNING);
+		volatile long startTime;
+		boolean grown;
+
+		Task(ISectionProvider provider) {
+			this.provider = provider;
+		}
+
+		public ConfigList call() throws Exception {
+			startTime = System.nanoTime();
+			started.countDown();
+			try {
+				ConfigList section = provider.collect();
+				if (section != null) {
+					// Also done for late results, the next refresh will use them.
+					cache.put(provider, section);
+				}
+				return section;
+			} finally {
+				if (!state.compareAndSet(RUNNING, DONE)) {
+					release(this);
+				}
+			}
+		}
+
+		/** Called once the task runs past its deadline. */
+		void abandon() {
+			if (state.compareAndSet(RUNNING, ABANDONED)) {
+				grow(this);
+			}
+		}
+	}
+
+	public SectionCollector(int threads, SectionCache cache) {
+		this.threads = threads;
+		executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("SysInfo-collector"));
+		this.cache = cache;
+	}
+
+	public SectionCollector(SectionCache cache) {
+		this(DEFAULT_THREADS, cache);
+	}
+
+	private synchronized void grow(Task task) {
+		if (abandoned < MAX_ABANDONED) {
+			abandoned++;
+			task.grown = true;
+			// the maximum first, it may never be below the core size
+			executor.setMaximumPoolSize(threads + abandoned);
+			executor.setCorePoolSize(threads + abandoned);
+		}
+	}
+
+	private synchronized void release(Task task) {
+		if (task.grown) {
+			abandoned--;
+			task.grown = false;
+			executor.setCorePoolSize(threads + abandoned);
+			executor.setMaximumPoolSize(threads + abandoned);
+		}
+	}
+
+	/** Workers abandoned after their deadline that still hold an extra thread. */
+	synchronized int getAbandonedCount() {
+		return abandoned;
+	}
+
+	public void collect(List<ISectionProvider> providers, final ConfigList result) {
+		collect(providers, new ISectionSink() {
+			public void onSection(int index, ConfigList section) {
+				result.getItems().add(section);
+			}
+
+			public void onComplete() {
+			}
+		});
+	}
+
+	public void collect(List<ISectionProvider> providers, ISectionSink sink) {
+		final long start = System.nanoTime();
+		ConfigList[] cached = new ConfigList[providers.size()];
+		List<Task> tasks = new ArrayList<Task>(providers.size());
+		List<Future<ConfigList>> futures = new ArrayList<Future<ConfigList>>(providers.size());
+		for (int i = 0; i < providers.size(); i++) {
+			Task task = null;
+			Future<ConfigList> future = null;
+			cached[i] = cache.get(providers.get(i));
+			if (cached[i] == null) {
+				task = new Task(providers.get(i));
+				try {
+					future = executor.submit(task);
+				} catch (RejectedExecutionException e) {
+					// shut down while a refresh was in progress
+				}
+			}
+			tasks.add(task);
+			futures.add(future);
+		}
+		for (int i = 0; i < providers.size(); i++) {
+			if (cached[i] != null) {
+				sink.onSection(i, cached[i]);
+			} else {
+				sink.onSection(i, waitFor(tasks.get(i), futures.get(i), start));
+			}
+		}
+		sink.onComplete();
+	}
+
+	private static ConfigList waitFor(Task task, Future<ConfigList> future, long start) {
+		ISectionProvider provider = task.provider;
+		long timeout = TimeUnit.MILLISECONDS.toNanos(provider.getTimeout());
+		ConfigList section;
+		if (future == null) {
+			section = new ConfigList(provider.getName());
+			section.setState(ConfigList.State.FAILED, "collector is shut down");
+			return section;
+		}
+		try {
+			// Queued for as long as the section may run at most, then dropped.
+			if (!task.started.await(Math.max(0, start + timeout - System.nanoTime()), TimeUnit.NANOSECONDS)
+					&& future.cancel(false)) {
+				section = new ConfigList(provider.getName());
+				section.setState(ConfigList.State.TIMED_OUT, "not started in " + provider.getTimeout() + " ms");
+				return section;
+			}
+			task.started.await();
+			long deadline = task.startTime + timeout;
+			section = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			if (section == null) {
+				section = new ConfigList(provider.getName());
+			}
+		} catch (TimeoutException e) {
+			// A blocked read can not be interrupted, the worker is just abandoned.
+			task.abandon();
+			section = new ConfigList(provider.getName());
+			section.setState(ConfigList.State.TIMED_OUT, "no result in " + provider.getTimeout() + " ms");
+		} catch (ExecutionException e) {
+			Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+			section = new ConfigList(provider.getName());
+			section.setState(ConfigList.State.FAILED, cause.toString());
+		} catch (InterruptedException e) {
+			if (!future.cancel(false)) {
+				task.abandon();
+			}
+			Thread.currentThread().interrupt();
+			section = new ConfigList(provider.getName());
+			section.setState(ConfigList.State.FAILED, "interrupted");
+		}
+		return section;
+	}
+
+	/** Stops the pool; queued and running workers are left to finish, not interrupted. */
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,52 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+public abstract class SectionProvider implements ISectionProvider {
+	public static final long DEFAULT_TIMEOUT = 2000;
+
+	private final String name;
+	private final long timeout;
+	private final long ttl;
+
+	public SectionProvider(String name, long timeout, long ttl) {
+		this.name = name;
+		this.timeout = timeout;
+		this.ttl = ttl;
+	}
+
+	public SectionProvider(String name, long timeout) {
+		this(name, timeout, TTL_LIVE);
+	}
+
+	public SectionProvider(String name) {
+		this(name, DEFAULT_TIMEOUT);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getTimeout() {
+		return timeout;
+	}
+
+	public long getTtl() {
+		return ttl;
+	}
+}
@@ -0,0 +1,143 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.ConfigSerializer;
+
+/**
+ * Persists the static sections of the report, so a cold start does not have to
+ * collect them again. The snapshot is only valid for the same build booted the
+ * same time: it is stored together with a key made of the build fingerprint and
+ * the kernel boot id, and is ignored when the key does not match. A file that
+ * can not be read back (corrupt, truncated or larger than {@link #MAX_SIZE})
+ * is treated as no snapshot and deleted.
+ */
+public class SnapshotStore {
+	private static final int MAGIC = 0x53495333; // "SIS3"
+
+	/** Larger files are not read, the static sections take a few tens of kB. */
+	public static final int MAX_SIZE = 4 * 1024 * 1024;
+
+	private final File file;
+
+	public SnapshotStore(File file) {
+		this.file = file;
+	}
+
+	/** @return sections by name, empty if there is no valid snapshot for key */
+	public Map<String, ConfigList> load(String key) {
+		Map<String, ConfigList> sections = new HashMap<String, ConfigList>();
+		if (!file.exists()) {
+			return sections;
+		}
+		try {
+			byte[] data = readFile();
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a snapshot or an older format");
+			}
+			if (!key.equals(ConfigSerializer.readString(in, data.length))) {
+				return sections;
+			}
+			int count = in.readInt();
+			if (count < 0 || count > data.length) {
+				throw new IOException("Invalid section count: " + count);
+			}
+			for (int i = 0; i < count; i++) {
+				String name = ConfigSerializer.readString(in, data.length);
+				ConfigBase section = ConfigSerializer.read(in, data.length);
+				if (!(section instanceof ConfigList)) {
+					throw new IOException("Section " + name + " is not a list");
+				}
+				sections.put(name, (ConfigList) section);
+			}
+		} catch (IOException e) {
+			sections.clear();
+			file.delete();
+		} catch (RuntimeException e) {
+			// a corrupt file must not break the report, it is only a cache
+			sections.clear();
+			file.delete();
+		}
+		return sections;
+	}
+
+	private byte[] readFile() throws IOException {
+		long length = file.length();
+		if (length > MAX_SIZE) {
+			throw new IOException("Snapshot of " + length + " bytes");
+		}
+		byte[] data = new byte[(int) length];
+		FileInputStream in = new FileInputStream(file);
+		try {
+			new DataInputStream(in).readFully(data);
+		} finally {
+			in.close();
+		}
+		return data;
+	}
+
+	/**
+	 * Serializes a snapshot in memory. A failure here depends on the sections
+	 * only, it is not worth retrying with the same data.
+	 */
+	public static byte[] encode(String key, Map<String, ConfigList> sections) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		ConfigSerializer.writeString(out, key);
+		out.writeInt(sections.size());
+		for (Map.Entry<String, ConfigList> entry : sections.entrySet()) {
+			ConfigSerializer.writeString(out, entry.getKey());
+			ConfigSerializer.write(out, entry.getValue());
+		}
+		out.close();
+		if (bytes.size() > MAX_SIZE) {
+			throw new IOException("Snapshot of " + bytes.size() + " bytes");
+		}
+		return bytes.toByteArray();
+	}
+
+	/** Replaces the snapshot file with data made by {@link #encode}. */
+	public void save(byte[] data) throws IOException {
+		File tmp = new File(file.getPath() + ".tmp");
+		FileOutputStream out = new FileOutputStream(tmp);
+		try {
+			out.write(data);
+		} finally {
+			out.close();
+		}
+		if (!tmp.renameTo(file)) {
+			tmp.delete();
+			throw new IOException("Can not rename " + tmp.getPath());
+		}
+	}
+}
@@ -17,20 +17,34 @@
 
 package com.github.mykh.system;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 
 import com.github.mykh.common.Config;
 import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigBoolean;
 import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.ConfigLong;
+import com.github.mykh.common.ConfigSchema;
+import com.github.mykh.common.IKeyValueHandler;
+import com.github.mykh.common.LazyConfig;
+import com.github.mykh.common.LazyConfigList;
+import com.github.mykh.common.ISectionSink;
+import com.github.mykh.common.MethodAccessor;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.ReflectionCache;
+import com.github.mykh.common.Unit;
 import com.github.mykh.common.Utils;
 
 import android.app.ActivityManager;
@@ -38,12 +52,35 @@ import android.app.ActivityManager.MemoryInfo;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.os.SystemClock;
 import android.provider.Settings.Secure;
 import android.util.Log;
 
 public class SysInfo {
+	private static final long SAMPLING_PERIOD = 1000; // ms
+
 	private final IntentFilter batteryChargedFilter;
 	private final BatteryReceiver batteryReceiver;
+	private final SectionCache cache = new SectionCache();
+	private final SectionCollector collector = new SectionCollector(cache);
+	private final List<ISectionProvider> providers = new ArrayList<ISectionProvider>();
+	private final SnapshotStore snapshot;
+	private final CpuUsageSampler cpuUsage = new CpuUsageSampler();
+	private final MemInfoSampler memInfo = new MemInfoSampler();
+	private final CpuFreqSampler cpuFreq = new CpuFreqSampler();
+	private final ProcessTable processTable = new ProcessTable(); // scanned on refresh only
+	private final MountsProvider mounts = new MountsProvider();
+	private final PressureMonitor pressure = new PressureMonitor();
+	private final NetDevSampler netDev = new NetDevSampler();
+	private final DiskStatsSampler diskStats = new DiskStatsSampler();
+	private final ThermalSampler thermal = new ThermalSampler();
+	private final PowerSupplyBatterySource powerSupply = new PowerSupplyBatterySource();
+	private final OsActivitySampler osActivity = new OsActivitySampler();
+	private final InterruptSampler interrupts = new InterruptSampler();
+	private volatile long memoryThreshold = -1;
+	private volatile String androidId = null; // does not change until a factory reset
+	private String snapshotKey = null;
+	private int snapshotSavedCount = 0; // static sections in the saved snapshot
 
 	private static int getVersionSdk() {
 		final String clsVer = "android.os.Build$VERSION";
@@ -54,24 +91,21 @@ public class SysInfo {
 		return ver;
 	}
 
-	private static void getProcParams(String filePath, List<String> names, List<String> values) {
-		String content;
+	private static void fillNodeListFromProcFile(String filePath, ConfigList list) {
+		final List<ConfigBase> items = list.getItems();
+		ProcFileReader reader = new ProcFileReader(filePath);
 		try {
-			content = Utils.readFileAsString(filePath);
+			reader.read();
+			ProcParser.parseKeyValues(reader, new IKeyValueHandler() {
+				public void onKeyValue(ByteBuffer buffer, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+					items.add(new Config(ProcParser.toString(buffer, keyStart, keyEnd), ProcParser.toString(buffer,
+							valueStart, valueEnd)));
+				}
+			});
 		} catch (IOException e) {
 			Log.e(Utils.LOGGER_TAG, "Can't read file (" + filePath + ")");
-			return;
-		}
-		Utils.parseConfString(content, names, values);
-	}
-
-	private static void fillNodeListFromProcFile(String filePath, ConfigList list) {
-		List<String> names = new ArrayList<String>();
-		List<String> values = new ArrayList<String>();
-		getProcParams(filePath, names, values);
-		assert (names.size() == values.size());
-		for (int i = 0; i < names.size(); i++) {
-			list.getItems().add(new Config(names.get(i), values.get(i)));
+		} finally {
+			reader.close();
 		}
 	}
 
@@ -81,17 +115,58 @@ public class SysInfo {
 		return context;
 	}
 
+	private static final ConfigSchema BROWSER_USER_AGENT = ConfigSchema.of("*Browser UserAgent");
+	private static final ConfigSchema ANDROID_ID = ConfigSchema.of("Android ID",
+			"A 64-bit number (as a hex string) that is randomly generated on the device's first boot and should remain constant for the lifetime of the device. (The value may change if a factory reset is performed on the device.)");
+	private static final ConfigSchema UPTIME = ConfigSchema.of("Uptime");
+	private static final ConfigSchema UPTIME_AWAKE = ConfigSchema.of("Uptime (without sleeps)");
+
 	private ConfigList getOS() {
-		String androidId = Secure.getString(getContext().getContentResolver(), Secure.ANDROID_ID);
+		if (androidId == null) {
+			androidId = Secure.getString(getContext().getContentResolver(), Secure.ANDROID_ID);
+		}
 		ConfigList info = new ConfigList("OS");
 		List<ConfigBase> items = info.getItems();
-		items.add(new Config("*Browser UserAgent", null));
-		items.add(new Config("Android ID", androidId,	"A 64-bit number (as a hex string) that is randomly generated on the device's first boot and should remain constant for the lifetime of the device. (The value may change if a factory reset is performed on the device.)"));
-		items.add(new Config("*Uptime", null));
-		items.add(new Config("*Uptime (without sleeps)", null));
+		items.add(new Config(BROWSER_USER_AGENT, null));
+		items.add(new Config(ANDROID_ID, androidId));
+		items.add(new Config(UPTIME, Utils.formatDuration(SystemClock.elapsedRealtime())));
+		items.add(new Config(UPTIME_AWAKE, Utils.formatDuration(SystemClock.uptimeMillis())));
 		return info;
 	}
 
+	private static final ConfigSchema ANDROID_VERSION = ConfigSchema.of("Android version");
+	private static final ConfigSchema RELEASE_CODENAME = ConfigSchema.of("Release Codename");
+	private static final ConfigSchema RELEASE_INCREMENTAL = ConfigSchema.of("Release version incremental",
+			"The internal value used by the underlying source control to represent this build. E.g., a perforce changelist number or a git hash.");
+	private static final ConfigSchema API_LEVEL = ConfigSchema.of("API LEVEL",
+			"The user-visible SDK version of the framework.");
+	private static final ConfigSchema CPU_ABI = ConfigSchema.of("CPU ABI",
+			"The name of the instruction set (CPU type + ABI convention) of native code.");
+	private static final ConfigSchema CPU_ABI2 = ConfigSchema.of("CPU ABI 2",
+			"The name of the second instruction set (CPU type + ABI convention) of native code.");
+	private static final ConfigSchema MANUFACTURER = ConfigSchema.of("Manufacturer",
+			"The manufacturer of the product/hardware.");
+	private static final ConfigSchema BOOTLOADER = ConfigSchema.of("Bootloader", "The system bootloader version number.");
+	private static final ConfigSchema HARDWARE = ConfigSchema.of("Hardware",
+			"The name of the hardware (from the kernel command line or /proc).");
+	private static final ConfigSchema RADIO = ConfigSchema.of("Radio", "The version string for the radio firmware.");
+	private static final ConfigSchema BOARD = ConfigSchema.of("Board", "The name of the underlying board.");
+	private static final ConfigSchema BRAND = ConfigSchema.of("Brand",
+			"The brand (e.g., carrier) the software is customized for, if any.");
+	private static final ConfigSchema DEVICE = ConfigSchema.of("Device", "The name of the industrial design.");
+	private static final ConfigSchema DISPLAY = ConfigSchema.of("Display",
+			"A build ID string meant for displaying to the user.");
+	private static final ConfigSchema FINGERPRINT = ConfigSchema.of("Fingerprint",
+			"A string that uniquely identifies this build.");
+	private static final ConfigSchema HOST = ConfigSchema.of("Host");
+	private static final ConfigSchema ID = ConfigSchema.of("ID");
+	private static final ConfigSchema MODEL = ConfigSchema.of("Model", "The end-user-visible name for the end product.");
+	private static final ConfigSchema PRODUCT = ConfigSchema.of("Product", "The name of the overall product.");
+	private static final ConfigSchema TAGS = ConfigSchema.of("Tags",
+			"Comma-separated tags describing the build, like \"unsigned,debug\".");
+	private static final ConfigSchema TYPE = ConfigSchema.of("Type", "The type of build.");
+	private static final ConfigSchema USER = ConfigSchema.of("User");
+
 	private ConfigList getBuildInfos() {
 		int versionSdk = getVersionSdk();
 		String versionCodeName = Utils.getClassFieldStrOrNull("android.os.Build$VERSION", "CODENAME");
@@ -110,102 +185,138 @@ public class SysInfo {
 		String buildDevice = Utils.getClassFieldStrOrNull("android.os.Build", "DEVICE");
 		String buildDisplay = Utils.getClassFieldStrOrNull("android.os.Build", "DISPLAY");
 		String buildFingerprint = Utils.getClassFieldStrOrNull("android.os.Build", "FINGERPRINT");
-		Date buildDate = new Date(android.os.Build.TIME);
+		final Date buildDate = new Date(android.os.Build.TIME);
 
 		ConfigList info = new ConfigList("BuildInfos");
 		List<ConfigBase> items = info.getItems();
-		items.add(new Config("Android version", android.os.Build.VERSION.RELEASE));
+		items.add(new Config(ANDROID_VERSION, android.os.Build.VERSION.RELEASE));
 		if (versionCodeName != null) {
-			items.add(new Config("Release Codename", versionCodeName));
+			items.add(new Config(RELEASE_CODENAME, versionCodeName));
 		}
 		if (versionIncremental != null) { // Show it ?
-			items.add(new Config("Release version incremental", versionIncremental,
-					"The internal value used by the underlying source control to represent this build. E.g., a perforce changelist number or a git hash."));
+			items.add(new Config(RELEASE_INCREMENTAL, versionIncremental));
 		}
-		items.add(new Config("API LEVEL", (versionSdk == -1) ? null : Integer.toString(versionSdk),
-				"The user-visible SDK version of the framework."));
+		items.add(new Config(API_LEVEL, (versionSdk == -1) ? null : Integer.toString(versionSdk)));
 		if (buildCpuAbi1 != null) {
-			items.add(new Config("CPU ABI", buildCpuAbi1,
-					"The name of the instruction set (CPU type + ABI convention) of native code."));
+			items.add(new Config(CPU_ABI, buildCpuAbi1));
 		}
 		if (buildCpuAbi2 != null) {
-			items.add(new Config("CPU ABI 2", buildCpuAbi2,
-					"The name of the second instruction set (CPU type + ABI convention) of native code."));
+			items.add(new Config(CPU_ABI2, buildCpuAbi2));
 		}
 		if (buildManufacturer != null) {
-			items.add(new Config("Manufacturer", buildManufacturer, "The manufacturer of the product/hardware."));
+			items.add(new Config(MANUFACTURER, buildManufacturer));
 		}
 		if (buildBootloader != null) {
-			items.add(new Config("Bootloader", buildBootloader, "The system bootloader version number."));
+			items.add(new Config(BOOTLOADER, buildBootloader));
 		}
 		if (buildHardware != null) {
-			items.add(new Config("Hardware", buildHardware,
-					"The name of the hardware (from the kernel command line or /proc)."));
+			items.add(new Config(HARDWARE, buildHardware));
 		}
 		if (buildRadio != null) {
-			items.add(new Config("Radio", buildRadio, "The version string for the radio firmware."));
+			items.add(new Config(RADIO, buildRadio));
 		}
 		if (buildBoard != null) {
-			items.add(new Config("Board", buildBoard, "The name of the underlying board."));
+			items.add(new Config(BOARD, buildBoard));
 		}
 		if (buildBrand != null) {
-			items.add(new Config("Brand", buildBrand, "The brand (e.g., carrier) the software is customized for, if any."));
+			items.add(new Config(BRAND, buildBrand));
 		}
 		if (buildDevice != null) {
-			items.add(new Config("Device", buildDevice, "The name of the industrial design."));
+			items.add(new Config(DEVICE, buildDevice));
 		}
 		if (buildDisplay != null) {
-			items.add(new Config("Display", buildDisplay, "A build ID string meant for displaying to the user."));
+			items.add(new Config(DISPLAY, buildDisplay));
 		}
 		if (buildFingerprint != null) {
-			items.add(new Config("Fingerprint", buildFingerprint, "A string that uniquely identifies this build."));
-		}
-		items.add(new Config("Host", android.os.Build.HOST));
-		items.add(new Config("ID", android.os.Build.ID));
-		items.add(new Config("Model", android.os.Build.MODEL, "The end-user-visible name for the end product."));
-		items.add(new Config("Product", android.os.Build.PRODUCT, "The name of the overall product."));
-		items.add(new Config("Tags", android.os.Build.TAGS,
-				"Comma-separated tags describing the build, like \"unsigned,debug\"."));
-		items.add(new Config("Type", android.os.Build.TYPE, "The type of build."));
-		items.add(new Config("User", android.os.Build.USER));
-		items.add(new Config("*Time", buildDate.toString())); // TODO: show in correct format
+			items.add(new Config(FINGERPRINT, buildFingerprint));
+		}
+		items.add(new Config(HOST, android.os.Build.HOST));
+		items.add(new Config(ID, android.os.Build.ID));
+		items.add(new Config(MODEL, android.os.Build.MODEL));
+		items.add(new Config(PRODUCT, android.os.Build.PRODUCT));
+		items.add(new Config(TAGS, android.os.Build.TAGS));
+		items.add(new Config(TYPE, android.os.Build.TYPE));
+		items.add(new Config(USER, android.os.Build.USER));
+		items.add(new LazyConfig("*Time", new Callable<String>() {
+			public String call() {
+				return buildDate.toString(); // TODO: show in correct format
+			}
+		}));
 		return info;
 	}
 
+	private static final ConfigSchema DISCHARGE_RATE = ConfigSchema.of("Discharge rate",
+			"Average since the device was unplugged.");
+	private static final ConfigSchema TIME_REMAINING = ConfigSchema.of("Time remaining");
+
 	private ConfigList getBattery() {
 		ConfigList bat = new ConfigList("Battery");
 		List<ConfigBase> items = bat.getItems();
-		items.add(new Config("Health", batteryReceiver.getHealthStr()));
-		items.add(new Config("Level", batteryReceiver.getLevelStr()));
-		items.add(new Config("Plugged", batteryReceiver.getPluggedStr()));
-		items.add(new Config("Present", batteryReceiver.getPresentStr()));
-		items.add(new Config("Status", batteryReceiver.getStatusStr()));
-		items.add(new Config("Technology", batteryReceiver.getTechnology()));
-		items.add(new Config("Temperature", batteryReceiver.getTemperatureStr()));
-		items.add(new Config("Voltage", batteryReceiver.getVoltageStr()));
+		// sysfs is finer grained, the broadcast is the fallback where it is not readable
+		IBatterySource source = powerSupply.isAvailable() ? powerSupply : batteryReceiver;
+		BatterySample sample = source.getSample();
+		sample.addConfigs(items);
+		long rate = source.getHistory().getDischargeRate();
+		items.add(new Config(DISCHARGE_RATE, BatteryHistory.formatDischargeRate(rate)));
+		items.add(new Config(TIME_REMAINING, BatteryHistory.formatTimeRemaining(rate, sample)));
 		return bat;
 	}
 
+	private long getMemoryThreshold() {
+		// The threshold does not change, do not ask ActivityManager on every refresh.
+		if (memoryThreshold < 0) {
+			ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+			MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+			activityManager.getMemoryInfo(memoryInfo);
+			memoryThreshold = memoryInfo.threshold;
+		}
+		return memoryThreshold;
+	}
+
+	private static final ConfigSchema FREE_RAM = ConfigSchema.of("Free RAM",
+			"MemAvailable from /proc/meminfo, or MemFree + Cached + Buffers on older kernels.");
+	private static final ConfigSchema THRESHOLD_RAM = ConfigSchema.of("Threshold RAM",
+			"The threshold of Free RAM at which we consider memory to be low and start killing background services and other non-extraneous processes.");
+
 	private ConfigList getMemory() {
 		// Details: http://www.drakaz.com/2010/04/30/android-memory-thresholds/
-		ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
-		MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
-		activityManager.getMemoryInfo(memoryInfo);
+		ConfigList details = memInfo.collect();
+		long total = memInfo.getValue("MemTotal");
+		long available = memInfo.getAvailable();
 
 		ConfigList mem = new ConfigList("Memory");
 		List<ConfigBase> items = mem.getItems();
-		items.add(new Config("*Download cache Max/Min", null));
-		items.add(new Config("*Data Max/Free", null));
-		items.add(new Config("*External storage Max/Free", null));
-		items.add(new Config("*Total RAM", null));
-		items.add(new Config("Free RAM", Double.toString(memoryInfo.availMem / Utils.MB)));
-		items.add(new Config(
-				"Threshold RAM",
-				Double.toString(memoryInfo.threshold / Utils.MB),
-				"The threshold of Free RAM at which we consider memory to be low and start killing background services and other non-extraneous processes."));
+		String externalPath = null;
+		if (android.os.Environment.getExternalStorageState().equals(android.os.Environment.MEDIA_MOUNTED)) {
+			externalPath = android.os.Environment.getExternalStorageDirectory().getPath();
+		}
+		// one shared deadline, a slow mount does not delay the others
+		String[] capacities = mounts.getCapacityStrs(android.os.Environment.getDownloadCacheDirectory().getPath(),
+				android.os.Environment.getDataDirectory().getPath(), externalPath);
+		items.add(new Config("Download cache Max/Free", capacities[0]));
+		items.add(new Config("Data Max/Free", capacities[1]));
+		items.add(new Config("External storage Max/Free", capacities[2]));
+		items.add((total < 0) ? new Config("Total RAM", null) : new ConfigLong("Total RAM", total * Utils.KB, Unit.BYTES));
+		items.add((available < 0) ? new Config(FREE_RAM, null) : new ConfigLong(FREE_RAM, available * Utils.KB,
+				Unit.BYTES));
+		items.add(new ConfigLong(THRESHOLD_RAM, getMemoryThreshold(), Unit.BYTES));
+		items.add(new Config("MemFree min/avg/max", memInfo.getHistoryStr(MemInfoSampler.MEM_FREE)));
+		items.add(new Config("Cached min/avg/max", memInfo.getHistoryStr(MemInfoSampler.CACHED)));
+		items.add(new Config("Buffers min/avg/max", memInfo.getHistoryStr(MemInfoSampler.BUFFERS)));
+		items.add(new Config("SwapFree min/avg/max", memInfo.getHistoryStr(MemInfoSampler.SWAP_FREE)));
+		items.add(details);
 		return mem;
 	}
 
+	private static final ConfigSchema[] LMK_LEVELS = {
+			ConfigSchema.of("FOREGROUND_APP", "This is the process running the current foreground app."),
+			ConfigSchema.of("VISIBLE_APP", "This is a process only hosting activities that are visible to the user."),
+			ConfigSchema.of("SECONDARY_SERVER", "This is a process holding a secondary server."),
+			ConfigSchema.of("HIDDEN_APP", "This is a process only hosting activities that are not visible."),
+			ConfigSchema.of("CONTENT_PROVIDER",
+					"This is a process with a content provider that does not have any clients attached to it."),
+			ConfigSchema.of("EMPTY_APP", "This is a process without anything currently running in it.") };
+
 	private ConfigList getLowMemoryKillerLevels() {
 		String lmkl_minfree = null;
 		final String lmklFileName = "/sys/module/lowmemorykiller/parameters/minfree";
@@ -214,26 +325,17 @@ public class SysInfo {
 		} catch (IOException e) {
 			Log.e(Utils.LOGGER_TAG, "Can not read file + " + lmklFileName);
 		}
-		String lmklFOREGROUND_APP = null;
-		String lmklVISIBLE_APP = null;
-		String lmklSECONDARY_SERVER = null;
-		String lmklHIDDEN_APP = null;
-		String lmklCONTENT_PROVIDER = null;
-		String lmklEMPTY_APP = null;
+		long[] minfree = null; // bytes
 		if (lmkl_minfree != null) {
 			String[] lmklParams = lmkl_minfree.trim().split(",");
-			if (lmklParams.length == 6) {
+			if (lmklParams.length == LMK_LEVELS.length) {
 				try {
+					minfree = new long[lmklParams.length];
 					for (int i = 0; i < lmklParams.length; i++) {
-						lmklParams[i] = String.format(Utils.locale, "%5.3f MB", Double.parseDouble(lmklParams[i]) * 4.0 / Utils.KB);
+						minfree[i] = Long.parseLong(lmklParams[i].trim()) * 4 * Utils.KB; // 4 kB pages
 					}
-					lmklFOREGROUND_APP = lmklParams[0];
-					lmklVISIBLE_APP = lmklParams[1];
-					lmklSECONDARY_SERVER = lmklParams[2];
-					lmklHIDDEN_APP = lmklParams[3];
-					lmklCONTENT_PROVIDER = lmklParams[4];
-					lmklEMPTY_APP = lmklParams[5];
 				} catch (Exception e) {
+					minfree = null;
 					Log.e(Utils.LOGGER_TAG, "lmkl params parse error.");
 				}
 			}
@@ -244,200 +346,369 @@ public class SysInfo {
 
 		ConfigList lmkl = new ConfigList("Low Memory Killer Levels");
 		List<ConfigBase> items = lmkl.getItems();
-		items.add(new Config("FOREGROUND_APP", lmklFOREGROUND_APP,
-				"This is the process running the current foreground app."));
-		items.add(new Config("VISIBLE_APP", lmklVISIBLE_APP,
-				"This is a process only hosting activities that are visible to the user."));
-		items.add(new Config("SECONDARY_SERVER", lmklSECONDARY_SERVER, "This is a process holding a secondary server."));
-		items.add(new Config("HIDDEN_APP", lmklHIDDEN_APP,
-				"This is a process only hosting activities that are not visible."));
-		items.add(new Config("CONTENT_PROVIDER", lmklCONTENT_PROVIDER,
-				"This is a process with a content provider that does not have any clients attached to it."));
-		items.add(new Config("EMPTY_APP", lmklEMPTY_APP, "This is a process without anything currently running in it."));
+		for (int i = 0; i < LMK_LEVELS.length; i++) {
+			if (minfree == null) {
+				items.add(new Config(LMK_LEVELS[i], null));
+			} else {
+				items.add(new ConfigLong(LMK_LEVELS[i], minfree[i], Unit.BYTES));
+			}
+		}
 		return lmkl;
 	}
 
+	private static final ConfigSchema ROOT_DIRECTORY = ConfigSchema.of("Root Directory");
+	private static final ConfigSchema DATA_DIRECTORY = ConfigSchema.of("Data Directory");
+	private static final ConfigSchema DOWNLOAD_CACHE_DIRECTORY = ConfigSchema.of("Download Cache Directory");
+	private static final ConfigSchema EXTERNAL_STORAGE_STATE = ConfigSchema.of("External Storage State");
+	private static final ConfigSchema EXTERNAL_STORAGE_DIRECTORY = ConfigSchema.of("External Storage Directory");
+	private static final ConfigSchema EXTERNAL_STORAGE_EMULATED = ConfigSchema.of("External Storage Is Emulated");
+	private static final ConfigSchema EXTERNAL_STORAGE_REMOVABLE = ConfigSchema.of("External Storage Is Removable");
+	private static final ConfigSchema ALARMS_DIRECTORY = ConfigSchema.of(
+			"Alarms Directory",
+			"Standard directory in which to place any audio files that should be in the list of alarms that the user can select (not as regular music).");
+	private static final ConfigSchema DCIM_DIRECTORY = ConfigSchema.of("DCIM Directory",
+			"The traditional location for pictures and videos when mounting the device as a camera.");
+	private static final ConfigSchema DOWNLOADS_DIRECTORY = ConfigSchema.of("Downloads Directory",
+			"Standard directory in which to place files that have been downloaded by the user.");
+	private static final ConfigSchema MOVIES_DIRECTORY = ConfigSchema.of("Movies Directory",
+			"Standard directory in which to place movies that are available to the user.");
+	private static final ConfigSchema MUSIC_DIRECTORY = ConfigSchema.of("Music Directory",
+			"Standard directory in which to place any audio files that should be in the regular list of music for the user.");
+	private static final ConfigSchema NOTIFICATIONS_DIRECTORY = ConfigSchema.of(
+			"Notifications Directory",
+			"Standard directory in which to place any audio files that should be in the list of notifications that the user can select (not as regular music).");
+	private static final ConfigSchema PICTURES_DIRECTORY = ConfigSchema.of("Pictures Directory",
+			"Standard directory in which to place pictures that are available to the user.");
+	private static final ConfigSchema PODCASTS_DIRECTORY = ConfigSchema.of(
+			"Podcasts Directory",
+			"Standard directory in which to place any audio files that should be in the list of podcasts that the user can select (not as regular music).");
+	private static final ConfigSchema RINGTONES_DIRECTORY = ConfigSchema.of(
+			"Ringtones Directory",
+			"Standard directory in which to place any audio files that should be in the list of ringtones that the user can select (not as regular music).");
+
 	private ConfigList getEnvironment() {
 		ConfigList env = new ConfigList("Environment");
 		List<ConfigBase> items = env.getItems();
 		// TODO: make directory clickable, do not show if null
-		items.add(new Config("Root Directory", android.os.Environment.getRootDirectory().getPath())); // TODO: check if Directory is null
-		items.add(new Config("Data Directory", android.os.Environment.getDataDirectory().getPath()));
-		items.add(new Config("Download Cache Directory", android.os.Environment.getDownloadCacheDirectory().getPath()));
-		items.add(new Config("External Storage State", android.os.Environment.getExternalStorageState()));
+		items.add(new Config(ROOT_DIRECTORY, android.os.Environment.getRootDirectory().getPath())); // TODO: check if Directory is null
+		items.add(new Config(DATA_DIRECTORY, android.os.Environment.getDataDirectory().getPath()));
+		items.add(new Config(DOWNLOAD_CACHE_DIRECTORY, android.os.Environment.getDownloadCacheDirectory().getPath()));
+		items.add(new Config(EXTERNAL_STORAGE_STATE, android.os.Environment.getExternalStorageState()));
 		if (android.os.Environment.getExternalStorageState().equals(android.os.Environment.MEDIA_MOUNTED)) {
-			items.add(new Config("External Storage Directory", android.os.Environment.getExternalStorageDirectory()
+			items.add(new Config(EXTERNAL_STORAGE_DIRECTORY, android.os.Environment.getExternalStorageDirectory()
 					.getPath()));
 		}
 		Boolean Environment_isExternalStorageEmulated = Utils.invokeClassMethodBoolOrNull("android.os.Environment",
 				"isExternalStorageEmulated");
 		if (Environment_isExternalStorageEmulated != null) {
-			items.add(new Config("External Storage Is Emulated", Environment_isExternalStorageEmulated ? "yes" : "no"));
+			items.add(new ConfigBoolean(EXTERNAL_STORAGE_EMULATED, Environment_isExternalStorageEmulated));
 		}
 		Boolean Environment_isExternalStorageRemovable = Utils.invokeClassMethodBoolOrNull("android.os.Environment",
 				"isExternalStorageRemovable");
 		if (Environment_isExternalStorageRemovable != null) {
-			items.add(new Config("External Storage Is Removable", Environment_isExternalStorageRemovable ? "yes" : "no"));
+			items.add(new ConfigBoolean(EXTERNAL_STORAGE_REMOVABLE, Environment_isExternalStorageRemovable));
 		}
 		// TODO: add directory path (use getExternalStoragePublicDirectory(String type))
-		items.add(new Config(
-				"Alarms Directory",
-				Utils.getClassFieldStrOrNull("android.os.Environment", "DIRECTORY_ALARMS"),
-				"Standard directory in which to place any audio files that should be in the list of alarms that the user can select (not as regular music)."));
-		items.add(new Config("DCIM Directory", Utils.getClassFieldStrOrNull("android.os.Environment", "DIRECTORY_DCIM"),
-				"The traditional location for pictures and videos when mounting the device as a camera."));
-		items.add(new Config("Downloads Directory", Utils.getClassFieldStrOrNull("android.os.Environment",
-				"DIRECTORY_DOWNLOADS"),
-				"Standard directory in which to place files that have been downloaded by the user."));
-		items.add(new Config("Movies Directory", Utils.getClassFieldStrOrNull("android.os.Environment",
-				"DIRECTORY_MOVIES"), "Standard directory in which to place movies that are available to the user."));
-		items.add(new Config("Music Directory",
-				Utils.getClassFieldStrOrNull("android.os.Environment", "DIRECTORY_MUSIC"),
-				"Standard directory in which to place any audio files that should be in the regular list of music for the user."));
-		items.add(new Config(
-				"Notifications Directory",
-				Utils.getClassFieldStrOrNull("android.os.Environment", "DIRECTORY_NOTIFICATIONS"),
-				"Standard directory in which to place any audio files that should be in the list of notifications that the user can select (not as regular music)."));
-		items.add(new Config("Pictures Directory", Utils.getClassFieldStrOrNull("android.os.Environment",
-				"DIRECTORY_PICTURES"), "Standard directory in which to place pictures that are available to the user."));
-		items.add(new Config(
-				"Podcasts Directory",
-				Utils.getClassFieldStrOrNull("android.os.Environment", "DIRECTORY_PODCASTS"),
-				"Standard directory in which to place any audio files that should be in the list of podcasts that the user can select (not as regular music)."));
-		items.add(new Config(
-				"Ringtones Directory",
-				Utils.getClassFieldStrOrNull("android.os.Environment", "DIRECTORY_RINGTONES"),
-				"Standard directory in which to place any audio files that should be in the list of ringtones that the user can select (not as regular music)."));
+		items.add(new Config(ALARMS_DIRECTORY, Utils.getClassFieldStrOrNull("android.os.Environment", "DIRECTORY_ALARMS")));
+		items.add(new Config(DCIM_DIRECTORY, Utils.getClassFieldStrOrNull("android.os.Environment", "DIRECTORY_DCIM")));
+		items.add(new Config(DOWNLOADS_DIRECTORY, Utils.getClassFieldStrOrNull("android.os.Environment",
+				"DIRECTORY_DOWNLOADS")));
+		items.add(new Config(MOVIES_DIRECTORY, Utils.getClassFieldStrOrNull("android.os.Environment", "DIRECTORY_MOVIES")));
+		items.add(new Config(MUSIC_DIRECTORY, Utils.getClassFieldStrOrNull("android.os.Environment", "DIRECTORY_MUSIC")));
+		items.add(new Config(NOTIFICATIONS_DIRECTORY, Utils.getClassFieldStrOrNull("android.os.Environment",
+				"DIRECTORY_NOTIFICATIONS")));
+		items.add(new Config(PICTURES_DIRECTORY, Utils.getClassFieldStrOrNull("android.os.Environment",
+				"DIRECTORY_PICTURES")));
+		items.add(new Config(PODCASTS_DIRECTORY, Utils.getClassFieldStrOrNull("android.os.Environment",
+				"DIRECTORY_PODCASTS")));
+		items.add(new Config(RINGTONES_DIRECTORY, Utils.getClassFieldStrOrNull("android.os.Environment",
+				"DIRECTORY_RINGTONES")));
 		return env;
 	}
 
 	private ConfigList getFeatures() {
 		ConfigList features = new ConfigList("Features");
 		List<ConfigBase> items = features.getItems();
-		Class<android.content.pm.PackageManager> pm = android.content.pm.PackageManager.class;
-		try {
-			Method method = pm.getMethod("getSystemAvailableFeatures", (Class[]) null);
-			Object res = method.invoke(getContext().getPackageManager(), (Object[]) null);
-			if (res != null) {
+		MethodAccessor getFeatures = ReflectionCache.method(android.content.pm.PackageManager.class,
+				"getSystemAvailableFeatures");
+		if (!getFeatures.isAvailable()) {
+			items.add(new Config("feature", "is not available in this version of Android"));
+			return features;
+		}
+		// The binder call stays within the section timeout, only decoding the result is deferred.
+		final Object res = getFeatures.invoke(getContext().getPackageManager());
+		if (res == null) {
+			return features;
+		}
+		return new LazyConfigList("Features", new Callable<List<ConfigBase>>() {
+			public List<ConfigBase> call() {
+				List<ConfigBase> items = new ArrayList<ConfigBase>();
 				for (int i = 0; i < Array.getLength(res); i++) {
 					Object feature = Array.get(res, i);
-					Field filed = feature.getClass().getField("name");
-					String name = (String) filed.get(feature);
+					String name = ReflectionCache.field(feature.getClass(), "name").getString(feature);
 					if (name == null) {
 						String ver = (String) Utils.invokeObjectMethodObjectOrNull(feature, "getGlEsVersion");
 						items.add(new Config("glEsVers", ver)); // TODO: check result 
 					} else
 						items.add(new Config("feature", name));
 				}
+				return items;
 			}
-		} catch (Exception e) {
-			Log.e(Utils.LOGGER_TAG, "Can not call getSystemAvailableFeatures: " + e.getMessage());
-			items.add(new Config("feature", "is not available in this version of Android"));
-		}
-		return features;
+		});
 	}
 
 	private ConfigList getJavaProperties() {
-		ConfigList javaprop = new ConfigList("Java Properties");
-		Properties properties = java.lang.System.getProperties();
-		Enumeration<?> e = properties.propertyNames();
-		while (e.hasMoreElements()) {
-			String key = (String) e.nextElement();
-			String Value = (String) properties.get(key);
-			javaprop.getItems().add(new Config(key, Value));
-		}
-		return javaprop;
+		return new LazyConfigList("Java Properties", new Callable<List<ConfigBase>>() {
+			public List<ConfigBase> call() {
+				List<ConfigBase> items = new ArrayList<ConfigBase>();
+				Properties properties = java.lang.System.getProperties();
+				Enumeration<?> e = properties.propertyNames();
+				while (e.hasMoreElements()) {
+					String key = (String) e.nextElement();
+					String Value = (String) properties.get(key);
+					items.add(new Config(key, Value));
+				}
+				return items;
+			}
+		});
 	}
 
 	private ConfigList getMisc() {
-		String procVersion = null;
-		final String procVersionFileName = "/proc/version";
-		try {
-			procVersion = Utils.readFileAsString(procVersionFileName);
-		} catch (IOException e) {
-			Log.e(Utils.LOGGER_TAG, "Can not read file + " + procVersionFileName);
-		}
-		ConfigList msc = new ConfigList("Misc");
-		List<ConfigBase> items = msc.getItems();
-		items.add(new Config("*CacheDir", getContext().getCacheDir().getPath()));
-		String ExternalCacheDirPath;
-		try {
-			Object obj = Utils.invokeObjectMethodObjectOrNull(getContext(), "getExternalCacheDir");
-			ExternalCacheDirPath = (String) Utils.invokeObjectMethodObjectOrNull(obj, "getPath");
-		} catch (Exception e) {
-			ExternalCacheDirPath = null;
-			Log.e(Utils.LOGGER_TAG, e.getMessage());
-		}
-		items.add(new Config("*ExternalCacheDir", ExternalCacheDirPath));
-		String ExternalFilesDirPath;
-		try {
-			Object obj = Utils.invokeObjectMethodObjectOrNull(getContext(), "getExternalFilesDir");
-			ExternalFilesDirPath = (String) Utils.invokeObjectMethodObjectOrNull(obj, "getPath");
-		} catch (Exception e) {
-			ExternalFilesDirPath = null;
-			Log.e(Utils.LOGGER_TAG, e.getMessage());
-		}
-		items.add(new Config("*ExternalFilesDir", ExternalFilesDirPath));
-		items.add(new Config("*Kernel version", procVersion));
-		items.add(new Config("*Android input methods", null));
-		Map<String, String> jenv = java.lang.System.getenv();
-		for (String key : jenv.keySet()) {
-			items.add(new Config(key, jenv.get(key)));
-		}
-		return msc;
+		return new LazyConfigList("Misc", new Callable<List<ConfigBase>>() {
+			public List<ConfigBase> call() {
+				List<ConfigBase> items = new ArrayList<ConfigBase>();
+				items.add(new LazyConfig("*CacheDir", new Callable<String>() {
+					public String call() {
+						return getContext().getCacheDir().getPath();
+					}
+				}));
+				items.add(new LazyConfig("*ExternalCacheDir", new Callable<String>() {
+					public String call() {
+						Object obj = Utils.invokeObjectMethodObjectOrNull(getContext(), "getExternalCacheDir");
+						return (String) Utils.invokeObjectMethodObjectOrNull(obj, "getPath");
+					}
+				}));
+				items.add(new LazyConfig("*ExternalFilesDir", new Callable<String>() {
+					public String call() {
+						Object obj = Utils.invokeObjectMethodObjectOrNull(getContext(), "getExternalFilesDir");
+						return (String) Utils.invokeObjectMethodObjectOrNull(obj, "getPath");
+					}
+				}));
+				items.add(new LazyConfig("*Kernel version", new Callable<String>() {
+					public String call() throws IOException {
+						return Utils.readFileAsString("/proc/version");
+					}
+				}));
+				items.add(new Config("*Android input methods", null));
+				for (final String key : java.lang.System.getenv().keySet()) {
+					items.add(new LazyConfig(key, new Callable<String>() {
+						public String call() {
+							return java.lang.System.getenv(key);
+						}
+					}));
+				}
+				return items;
+			}
+		});
 	}
 
-	public void process(ConfigList config) {
+	private void addPlaceholder(String name) {
+		providers.add(new SectionProvider(name, SectionProvider.DEFAULT_TIMEOUT, ISectionProvider.TTL_STATIC) {
+			public ConfigList collect() {
+				return new ConfigList(getName());
+			}
+		});
+	}
+
+	private void createProviders() {
 		// http://etenclub.ru/pda/board/Optimizaciya-raboty-pamyati-shtatnymi-sredstvami-android-os-t30608.html#entry267212
 		// http://forum.xda-developers.com/showpost.php?p=5442369&postcount=1
 		// http://developer.android.com/reference/android/content/pm/PackageManager.html
 		// http://developer.android.com/reference/android/webkit/WebSettings.htm
 		// http://www.xinotes.org/notes/note/911/
-		// /proc/stat
-		// /proc/mounts
 
-		List<ConfigBase> items = config.getItems();
-		items.add(getOS());
-		items.add(getBuildInfos());
-		items.add(getBattery());
-		items.add(getMemory());
-		items.add(getLowMemoryKillerLevels());
+		providers.add(new SectionProvider("OS") {
+			public ConfigList collect() {
+				return getOS();
+			}
+		});
+		providers.add(osActivity);
+		providers.add(new SectionProvider("BuildInfos", SectionProvider.DEFAULT_TIMEOUT, ISectionProvider.TTL_STATIC) {
+			public ConfigList collect() {
+				return getBuildInfos();
+			}
+		});
+		providers.add(new SectionProvider("Battery") {
+			public ConfigList collect() {
+				return getBattery();
+			}
+		});
+		providers.add(powerSupply);
+		providers.add(new SectionProvider("Memory") {
+			public ConfigList collect() {
+				return getMemory();
+			}
+		});
+		providers.add(new SectionProvider("Low Memory Killer Levels", SectionProvider.DEFAULT_TIMEOUT, 60000) {
+			public ConfigList collect() {
+				return getLowMemoryKillerLevels();
+			}
+		});
 
+		providers.add(pressure);
+		providers.add(thermal);
+
+		if (Utils.SHOW_UNIMPLEMENTED_ITEMS) {
+			addPlaceholder("Telephony");
+		}
+		providers.add(netDev);
 		if (Utils.SHOW_UNIMPLEMENTED_ITEMS) {
-			ConfigList tel = new ConfigList("Telephony");
-			items.add(tel);
-			ConfigList net = new ConfigList("Networks");
-			items.add(net);
-			ConfigList wifi = new ConfigList("Wifi");
-			items.add(wifi);
+			addPlaceholder("Wifi");
 		}
 
-		ConfigList cpu = new ConfigList("CPU");
-		fillNodeListFromProcFile("/proc/cpuinfo", cpu);
-		items.add(new Config("*Frequency Stats (time)", null));
-		items.add(cpu);
+		providers.add(new SectionProvider("CPU", SectionProvider.DEFAULT_TIMEOUT, 60000) {
+			public ConfigList collect() {
+				ConfigList cpu = new ConfigList(getName());
+				fillNodeListFromProcFile("/proc/cpuinfo", cpu);
+				return cpu;
+			}
+		});
+
+		providers.add(cpuUsage);
+		providers.add(cpuFreq);
+		providers.add(processTable);
+		providers.add(interrupts);
 
 		if (Utils.SHOW_UNIMPLEMENTED_ITEMS) {
-			ConfigList cam = new ConfigList("Camera");
-			items.add(cam);
-			ConfigList scr = new ConfigList("Screen");
-			items.add(scr);
-			ConfigList opengl = new ConfigList("OpenGL");
-			items.add(opengl);
-			ConfigList sensors = new ConfigList("Sensors");
-			items.add(sensors);
+			addPlaceholder("Camera");
+			addPlaceholder("Screen");
+			addPlaceholder("OpenGL");
+			addPlaceholder("Sensors");
 		}
 
-		items.add(getEnvironment());
-		items.add(getFeatures());
+		providers.add(new SectionProvider("Environment", SectionProvider.DEFAULT_TIMEOUT, 30000) {
+			public ConfigList collect() {
+				return getEnvironment();
+			}
+		});
+		providers.add(new SectionProvider("Features", 5000, ISectionProvider.TTL_STATIC) {
+			public ConfigList collect() {
+				return getFeatures();
+			}
+		});
 
-		if (Utils.SHOW_UNIMPLEMENTED_ITEMS) {
-			ConfigList mnt = new ConfigList("Mount points");
-			items.add(mnt);
+		providers.add(mounts);
+		providers.add(diskStats);
+
+		providers.add(new SectionProvider("Java Properties", SectionProvider.DEFAULT_TIMEOUT, ISectionProvider.TTL_STATIC) {
+			public ConfigList collect() {
+				return getJavaProperties();
+			}
+		});
+		providers.add(new SectionProvider("Misc", SectionProvider.DEFAULT_TIMEOUT, ISectionProvider.TTL_STATIC) {
+			public ConfigList collect() {
+				return getMisc();
+			}
+		});
+	}
+
+	private static String getSnapshotKey() {
+		String bootId = null;
+		final String bootIdFileName = "/proc/sys/kernel/random/boot_id";
+		try {
+			bootId = Utils.readFileAsString(bootIdFileName).trim();
+		} catch (IOException e) {
+			Log.e(Utils.LOGGER_TAG, "Can not read file + " + bootIdFileName);
 		}
+		return Utils.getClassFieldStrOrNull("android.os.Build", "FINGERPRINT") + "/" + bootId;
+	}
 
-		items.add(getJavaProperties());
-		items.add(getMisc());
+	private int getStaticProvidersCount() {
+		int count = 0;
+		for (ISectionProvider provider : providers) {
+			if (provider.getTtl() == ISectionProvider.TTL_STATIC) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/** Puts the static sections saved by a previous run into the cache. */
+	private synchronized void loadSnapshot() {
+		if (snapshotKey != null) {
+			return;
+		}
+		snapshotKey = getSnapshotKey();
+		Map<String, ConfigList> sections = snapshot.load(snapshotKey);
+		int found = 0;
+		for (ISectionProvider provider : providers) {
+			ConfigList section = sections.get(provider.getName());
+			if (provider.getTtl() == ISectionProvider.TTL_STATIC && section != null) {
+				cache.put(provider, section);
+				found++;
+			}
+		}
+		snapshotSavedCount = found;
+	}
+
+	/**
+	 * Saves the cached static sections whenever there are more of them than in
+	 * the saved snapshot. Lazy sections are saved only after they have been
+	 * rendered, saving does not evaluate them.
+	 */
+	private synchronized void saveSnapshot() {
+		if (snapshotSavedCount >= getStaticProvidersCount()) {
+			return;
+		}
+		Map<String, ConfigList> sections = new HashMap<String, ConfigList>();
+		for (ISectionProvider provider : providers) {
+			if (provider.getTtl() == ISectionProvider.TTL_STATIC) {
+				ConfigList section = cache.get(provider);
+				// missing ones timed out or failed, try again after the next refresh
+				if (section != null && !SectionCache.isPending(section)
+						&& section.getState() == ConfigList.State.OK) {
+					sections.put(provider.getName(), section);
+				}
+			}
+		}
+		if (sections.size() <= snapshotSavedCount) {
+			return;
+		}
+		byte[] data;
+		try {
+			data = SnapshotStore.encode(snapshotKey, sections);
+		} catch (IOException e) {
+			// the same sections would fail again, do not retry on every refresh
+			Log.e(Utils.LOGGER_TAG, "Can not serialize snapshot: " + e.getMessage());
+			snapshotSavedCount = Integer.MAX_VALUE;
+			return;
+		}
+		try {
+			snapshot.save(data);
+			snapshotSavedCount = sections.size();
+		} catch (IOException e) {
+			Log.e(Utils.LOGGER_TAG, "Can not save snapshot: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Collects all sections in parallel and appends them to config in the
+	 * usual order. Blocks until every section is done or timed out.
+	 */
+	public void process(ConfigList config) {
+		loadSnapshot();
+		collector.collect(providers, config);
+		saveSnapshot();
+	}
+
+	/**
+	 * Collects all sections in parallel and passes each one to sink as soon as
+	 * it is ready. Blocks until the last section is delivered.
+	 */
+	public void process(ISectionSink sink) {
+		loadSnapshot();
+		collector.collect(providers, sink);
+		saveSnapshot();
 	}
 	
 	public SysInfo(Context context) {
@@ -445,5 +716,45 @@ public class SysInfo {
 		batteryChargedFilter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
 		batteryReceiver = new BatteryReceiver();
 		getContext().registerReceiver(batteryReceiver, batteryChargedFilter);
+		snapshot = new SnapshotStore(new File(context.getCacheDir(), "sections.snapshot"));
+		// the thresholds lmkd uses for its own PSI triggers
+		pressure.addTrigger(PressureMonitor.MEMORY, false, 70000, 1000000);
+		pressure.addTrigger(PressureMonitor.MEMORY, true, 700000, 1000000);
+		createProviders();
+	}
+
+	/** Starts the background samplers of the live sections. */
+	public void startSampling() {
+		cpuUsage.start(SAMPLING_PERIOD);
+		memInfo.start(SAMPLING_PERIOD);
+		cpuFreq.start(SAMPLING_PERIOD);
+		pressure.startMonitoring(SAMPLING_PERIOD);
+		netDev.start(SAMPLING_PERIOD);
+		diskStats.start(SAMPLING_PERIOD);
+		thermal.start(ThermalSampler.DEFAULT_PERIOD);
+		powerSupply.start(PowerSupplyBatterySource.DEFAULT_PERIOD);
+		osActivity.start(SAMPLING_PERIOD);
+		interrupts.start(SAMPLING_PERIOD);
+	}
+
+	public void stopSampling() {
+		cpuUsage.stop();
+		memInfo.stop();
+		cpuFreq.stop();
+		pressure.stopMonitoring();
+		netDev.stop();
+		diskStats.stop();
+		thermal.stop();
+		powerSupply.stop();
+		osActivity.stop();
+		interrupts.stop();
+	}
+
+	public void release() {
+		stopSampling();
+		getContext().unregisterReceiver(batteryReceiver);
+		collector.shutdown();
+		processTable.shutdown();
+		mounts.shutdown();
 	}
 }
@@ -0,0 +1,258 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.LongRingBuffer;
+import com.github.mykh.common.ProcFileReader;
+import com.github.mykh.common.ProcParser;
+import com.github.mykh.common.Utils;
+
+/**
+ * Thermal zone temperatures and cooling device states from /sys/class/thermal.
+ * The type of a zone or cooling device is read once when it is discovered;
+ * after that a tick is one positional read per kept-open node, cheap enough
+ * for sub-second periods. Min/max/avg per zone are kept over the last
+ * {@link #WINDOW_SIZE} samples. Nodes that fail to read (disabled zones
+ * return EINVAL) are closed and left out until they read again; that is tried
+ * at every probe ({@link #PROBE_INTERVAL}), which also discovers new nodes.
+ */
+public class ThermalSampler extends PeriodicSampler {
+	public static final String THERMAL_DIR = "/sys/class/thermal";
+	public static final long DEFAULT_PERIOD = 250; // ms
+	public static final int WINDOW_SIZE = 120; // 30 s at the default period
+	public static final long PROBE_INTERVAL = 10000; // ms, retry of failed nodes and discovery
+
+	private static class Node {
+		final int index;
+		final String dir;
+		String type;
+		ProcFileReader reader;
+		boolean available = true; // false after a failed read, until the next probe reads it
+		long value;
+
+		Node(String dir, int index) {
+			this.dir = dir;
+			this.index = index;
+		}
+	}
+
+	private static class Zone extends Node {
+		final LongRingBuffer history = new LongRingBuffer(WINDOW_SIZE, 1); // m°C
+		int scale = 0; // to m°C, 0 until the first non-zero reading
+
+		Zone(String dir, int index) {
+			super(dir, index);
+		}
+	}
+
+	private static class CoolingDevice extends Node {
+		long maxState = -1;
+
+		CoolingDevice(String dir, int index) {
+			super(dir, index);
+		}
+	}
+
+	private static final Comparator<Node> BY_INDEX = new Comparator<Node>() {
+		public int compare(Node a, Node b) {
+			return a.index - b.index;
+		}
+	};
+
+	private final String thermalDir;
+	private final List<Zone> zones = new ArrayList<Zone>();
+	private final List<CoolingDevice> coolingDevices = new ArrayList<CoolingDevice>();
+	private long nextProbe = 0; // ns
+
+	/** @param thermalDir normally {@link #THERMAL_DIR} */
+	public ThermalSampler(String thermalDir) {
+		super("Thermal");
+		this.thermalDir = thermalDir;
+	}
+
+	public ThermalSampler() {
+		this(THERMAL_DIR);
+	}
+
+	private static int indexOf(String entry, String prefix) {
+		if (!entry.startsWith(prefix)) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(entry.substring(prefix.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static String readString(ProcFileReader reader, String path) {
+		try {
+			reader.read(path);
+			return reader.getString().trim();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static boolean contains(List<? extends Node> nodes, int index) {
+		for (Node node : nodes) {
+			if (node.index == index) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Adds the zones and cooling devices that are not known yet. */
+	private void discover() {
+		String[] entries = new File(thermalDir).list();
+		if (entries == null) {
+			return;
+		}
+		ProcFileReader scratch = null;
+		for (String entry : entries) {
+			String dir = thermalDir + "/" + entry;
+			int index = indexOf(entry, "thermal_zone");
+			if (index >= 0 && !contains(zones, index)) {
+				if (scratch == null) {
+					scratch = new ProcFileReader();
+				}
+				Zone zone = new Zone(dir, index);
+				zone.type = readString(scratch, dir + "/type");
+				zone.reader = new ProcFileReader(dir + "/temp");
+				zones.add(zone);
+			}
+			index = indexOf(entry, "cooling_device");
+			if (index >= 0 && !contains(coolingDevices, index)) {
+				if (scratch == null) {
+					scratch = new ProcFileReader();
+				}
+				CoolingDevice device = new CoolingDevice(dir, index);
+				device.type = readString(scratch, dir + "/type");
+				String maxState = readString(scratch, dir + "/max_state");
+				if (maxState != null && maxState.length() > 0) {
+					try {
+						device.maxState = Long.parseLong(maxState);
+					} catch (NumberFormatException e) {
+						// leave unknown
+					}
+				}
+				device.reader = new ProcFileReader(dir + "/cur_state");
+				coolingDevices.add(device);
+			}
+		}
+		if (scratch != null) {
+			scratch.close();
+			Collections.sort(zones, BY_INDEX);
+			Collections.sort(coolingDevices, BY_INDEX);
+		}
+	}
+
+	/** @param probe whether a node that failed before is tried again */
+	private static boolean read(Node node, boolean probe) {
+		if (!node.available && !probe) {
+			return false;
+		}
+		try {
+			if (node.reader.read() == 0) {
+				return false;
+			}
+			node.value = ProcParser.parseLong(node.reader.getBuffer(), 0, node.reader.getLength());
+			node.available = true;
+			return true;
+		} catch (IOException e) {
+			node.reader.close(); // opened again by the next probe
+			node.available = false;
+			return false;
+		}
+	}
+
+	@Override
+	protected void sample() {
+		long now = System.nanoTime();
+		boolean probe = now - nextProbe >= 0;
+		if (probe) {
+			nextProbe = now + TimeUnit.MILLISECONDS.toNanos(PROBE_INTERVAL);
+			discover();
+		}
+		for (Zone zone : zones) {
+			if (read(zone, probe)) {
+				// Almost all drivers report m°C, a few old ones whole degrees. Decided
+				// once per zone: whole degrees never reach 200, so a later m°C reading
+				// below 1°C is not taken for degrees.
+				if (zone.scale == 0 && zone.value != 0) {
+					zone.scale = (zone.value > -200 && zone.value < 200) ? 1000 : 1;
+				}
+				if (zone.scale != 0) {
+					zone.value *= zone.scale;
+				}
+				zone.history.add(zone.value);
+			}
+		}
+		for (CoolingDevice device : coolingDevices) {
+			read(device, probe);
+		}
+	}
+
+	private static String formatTemperature(long milliCelsius) {
+		return String.format(Utils.locale, "%.1f°C", milliCelsius / 1000.0);
+	}
+
+	private static String label(Node node, String prefix) {
+		return (node.type != null && node.type.length() > 0) ? node.type : prefix + node.index;
+	}
+
+	@Override
+	protected ConfigList buildSection() {
+		ConfigList thermal = new ConfigList(getName());
+		List<ConfigBase> items = thermal.getItems();
+		ConfigList zoneList = new ConfigList("Zones", "Current (min/avg/max over the last " + WINDOW_SIZE
+				+ " samples)");
+		for (Zone zone : zones) {
+			LongRingBuffer history = zone.history;
+			if (!zone.available || history.size() == 0) {
+				continue;
+			}
+			zoneList.getItems().add(new Config(label(zone, "thermal_zone"), formatTemperature(zone.value) + " ("
+					+ formatTemperature(history.min(0)) + " / " + formatTemperature(history.average(0)) + " / "
+					+ formatTemperature(history.max(0)) + ")"));
+		}
+		items.add(zoneList);
+		ConfigList coolingList = new ConfigList("Cooling devices", "Current state / max state");
+		for (CoolingDevice device : coolingDevices) {
+			if (!device.available) {
+				continue;
+			}
+			coolingList.getItems().add(new Config(label(device, "cooling_device"), device.value + " / "
+					+ ((device.maxState >= 0) ? Long.toString(device.maxState) : "?")));
+		}
+		items.add(coolingList);
+		return thermal;
+	}
+}
@@ -0,0 +1,202 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.views;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigBoolean;
+import com.github.mykh.common.ConfigDouble;
+import com.github.mykh.common.ConfigEnum;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.ConfigLong;
+import com.github.mykh.common.ISectionSink;
+
+/**
+ * Compact binary form of config trees, read back by {@link ConfigReader_Binary}.
+ * All numbers are unsigned LEB128 varints and strings are UTF-8. Names and
+ * hints go through a dictionary that lives as long as the formatter: the
+ * first occurrence is written inline and gets the next id, later ones are
+ * written as the id only. A string reference is 0 for null, 1 for an inline
+ * string (length, bytes) and id + 2 otherwise. Values are always inline.
+ * <p>
+ * Node: tag; name, hint; then by tag
+ * <ul>
+ * <li>1 text value: the value</li>
+ * <li>2 list: the state ordinal, the state message if the state is not OK, the
+ * item count and the items</li>
+ * <li>3 long: the zigzag encoded number, the unit ordinal</li>
+ * <li>4 double: the 8 bytes of the IEEE 754 number, decimals, the unit ordinal</li>
+ * <li>5 boolean: 0 or 1</li>
+ * <li>6 enum: the zigzag encoded code, the label through the dictionary</li>
+ * </ul>
+ * <p>
+ * Can be used as a section sink, which writes the sections one after the other
+ * and flushes the stream after each of them.
+ */
+public class ConfigFormatter_Binary implements ISectionSink {
+	static final int TAG_CONFIG = 1;
+	static final int TAG_LIST = 2;
+	static final int TAG_LONG = 3;
+	static final int TAG_DOUBLE = 4;
+	static final int TAG_BOOLEAN = 5;
+	static final int TAG_ENUM = 6;
+	static final int STRING_NULL = 0;
+	static final int STRING_INLINE = 1;
+	static final int STRING_ID_BASE = 2;
+
+	private final OutputStream out;
+	private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+	private IOException error;
+
+	public ConfigFormatter_Binary(OutputStream out) {
+		this.out = out;
+	}
+
+	public void writeVarint(long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private void writeInline(String str) throws IOException {
+		byte[] bytes = str.getBytes("UTF-8");
+		writeVarint(bytes.length);
+		out.write(bytes);
+	}
+
+	/** Writes a string through the dictionary. */
+	public void writeString(String str) throws IOException {
+		if (str == null) {
+			writeVarint(STRING_NULL);
+			return;
+		}
+		Integer id = dictionary.get(str);
+		if (id != null) {
+			writeVarint(id + STRING_ID_BASE);
+		} else {
+			dictionary.put(str, dictionary.size());
+			writeVarint(STRING_INLINE);
+			writeInline(str);
+		}
+	}
+
+	/** Writes a string that is not worth a dictionary entry. */
+	private void writeValue(String str) throws IOException {
+		if (str == null) {
+			writeVarint(STRING_NULL);
+		} else {
+			writeVarint(STRING_INLINE);
+			writeInline(str);
+		}
+	}
+
+	public void write(ConfigBase node) throws IOException {
+		if (node instanceof ConfigList) {
+			ConfigList list = (ConfigList) node;
+			List<ConfigBase> items = list.getItems();
+			writeVarint(TAG_LIST);
+			writeString(list.getName());
+			writeString(list.getHint());
+			writeVarint(list.getState().ordinal());
+			if (list.getState() != ConfigList.State.OK) {
+				writeValue(list.getStateMessage());
+			}
+			writeVarint(items.size());
+			for (ConfigBase item : items) {
+				write(item);
+			}
+		} else if (node instanceof ConfigLong) {
+			ConfigLong typed = (ConfigLong) node;
+			writeVarint(TAG_LONG);
+			writeString(node.getName());
+			writeString(node.getHint());
+			writeVarint(zigzag(typed.getLong()));
+			writeVarint(typed.getUnit().ordinal());
+		} else if (node instanceof ConfigDouble) {
+			ConfigDouble typed = (ConfigDouble) node;
+			writeVarint(TAG_DOUBLE);
+			writeString(node.getName());
+			writeString(node.getHint());
+			long bits = Double.doubleToLongBits(typed.getDouble());
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				out.write((int) (bits >>> shift));
+			}
+			writeVarint(typed.getDecimals());
+			writeVarint(typed.getUnit().ordinal());
+		} else if (node instanceof ConfigBoolean) {
+			writeVarint(TAG_BOOLEAN);
+			writeString(node.getName());
+			writeString(node.getHint());
+			writeVarint(((ConfigBoolean) node).getBoolean() ? 1 : 0);
+		} else if (node instanceof ConfigEnum) {
+			ConfigEnum typed = (ConfigEnum) node;
+			writeVarint(TAG_ENUM);
+			writeString(node.getName());
+			writeString(node.getHint());
+			writeVarint(zigzag(typed.getCode()));
+			writeString(typed.getLabel());
+		} else if (node instanceof Config) {
+			writeVarint(TAG_CONFIG);
+			writeString(node.getName());
+			writeString(node.getHint());
+			writeValue(((Config) node).getValue());
+		} else {
+			throw new IOException("Unsupported node: " + node.getClass().getName());
+		}
+	}
+
+	public void onSection(int index, ConfigList section) {
+		if (error != null) {
+			return;
+		}
+		try {
+			write(section);
+			out.flush();
+		} catch (IOException e) {
+			error = e;
+		}
+	}
+
+	public void onComplete() {
+		if (error != null) {
+			return;
+		}
+		try {
+			out.flush();
+		} catch (IOException e) {
+			error = e;
+		}
+	}
+
+	/** The error that stopped the output when used as a sink, null if there was none. */
+	public IOException getError() {
+		return error;
+	}
+}
@@ -0,0 +1,161 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.views;
+
+import java.io.IOException;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigBoolean;
+import com.github.mykh.common.ConfigDouble;
+import com.github.mykh.common.ConfigEnum;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.ConfigLong;
+import com.github.mykh.common.Unit;
+import com.github.mykh.common.Utils;
+
+/**
+ * Writes the tree as compact JSON while walking it, without building a
+ * document first. A list is {"name", "hint", "state", "message", "items"}, a
+ * value is {"name", "value", "unit", "code", "hint"}, where typed values are
+ * JSON numbers or booleans. Null members other than the name, empty hints, the
+ * unit of plain numbers and the state of OK lists are left out. Used with {@link ReportWriter}
+ * every section is one JSON object per line. The level is ignored.
+ */
+public class ConfigFormatter_Json implements IConfigFormatter {
+	private static final String HEX = "0123456789abcdef";
+
+	private static void appendString(Appendable out, String str) throws IOException {
+		if (str == null) {
+			out.append("null");
+			return;
+		}
+		out.append('"');
+		int start = 0;
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if (c >= 0x20 && c != '"' && c != '\\' && c != 0x2028 && c != 0x2029) {
+				continue;
+			}
+			out.append(str, start, i);
+			start = i + 1;
+			switch (c) {
+			case '"':
+				out.append("\\\"");
+				break;
+			case '\\':
+				out.append("\\\\");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			case '\r':
+				out.append("\\r");
+				break;
+			case '\t':
+				out.append("\\t");
+				break;
+			default:
+				out.append("\\u").append(HEX.charAt(c >> 12)).append(HEX.charAt((c >> 8) & 0xf))
+						.append(HEX.charAt((c >> 4) & 0xf)).append(HEX.charAt(c & 0xf));
+			}
+		}
+		out.append(str, start, str.length());
+		out.append('"');
+	}
+
+	private static void appendMember(Appendable out, String name, String value) throws IOException {
+		if (value != null) {
+			out.append(',');
+			appendString(out, name);
+			out.append(':');
+			appendString(out, value);
+		}
+	}
+
+	/** Typed values are written as JSON numbers and booleans, with their unit. */
+	private static void appendValue(Appendable out, Config node) throws IOException {
+		if (node instanceof ConfigLong) {
+			out.append(",\"value\":").append(Long.toString(((ConfigLong) node).getLong()));
+			appendUnit(out, ((ConfigLong) node).getUnit());
+		} else if (node instanceof ConfigDouble) {
+			double number = ((ConfigDouble) node).getDouble();
+			boolean finite = !Double.isNaN(number) && !Double.isInfinite(number);
+			out.append(",\"value\":").append(finite ? Double.toString(number) : "null");
+			appendUnit(out, ((ConfigDouble) node).getUnit());
+		} else if (node instanceof ConfigBoolean) {
+			out.append(",\"value\":").append(((ConfigBoolean) node).getBoolean() ? "true" : "false");
+		} else if (node instanceof ConfigEnum) {
+			appendMember(out, "value", node.getValue());
+			out.append(",\"code\":").append(Integer.toString(((ConfigEnum) node).getCode()));
+		} else {
+			appendMember(out, "value", node.getValue());
+		}
+	}
+
+	private static void appendUnit(Appendable out, Unit unit) throws IOException {
+		if (unit != Unit.NONE) {
+			appendMember(out, "unit", unit.getSymbol());
+		}
+	}
+
+	private static void appendHint(Appendable out, ConfigBase node) throws IOException {
+		if (node.getHint() != null && node.getHint().length() > 0) {
+			appendMember(out, "hint", node.getHint());
+		}
+	}
+
+	private static boolean isHidden(ConfigBase node) {
+		return !Utils.SHOW_UNIMPLEMENTED_ITEMS && (node instanceof Config) && node.getName().startsWith("*");
+	}
+
+	public void process(Config node, Appendable out, int level) throws IOException {
+		out.append("{\"name\":");
+		appendString(out, node.getName());
+		appendValue(out, node);
+		appendHint(out, node);
+		out.append('}');
+	}
+
+	public void process(ConfigList list, Appendable out, int level) throws IOException {
+		out.append("{\"name\":");
+		appendString(out, list.getName());
+		appendHint(out, list);
+		if (list.getState() != ConfigList.State.OK) {
+			appendMember(out, "state", list.getState().name());
+			appendMember(out, "message", list.getStateMessage());
+		}
+		out.append(",\"items\":[");
+		boolean first = true;
+		for (ConfigBase node : list.getItems()) {
+			if (isHidden(node)) {
+				continue;
+			}
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+			if (node instanceof Config) {
+				process((Config) node, out, level);
+			} else if (node instanceof ConfigList) {
+				process((ConfigList) node, out, level + 1);
+			}
+		}
+		out.append("]}");
+	}
+}
@@ -17,50 +17,80 @@
 
 package com.github.mykh.views;
 
+import java.io.IOException;
+
 import com.github.mykh.common.Config;
 import com.github.mykh.common.ConfigBase;
 import com.github.mykh.common.ConfigList;
 import com.github.mykh.common.Utils;
 
 public class ConfigFormatter_PlainText implements IConfigFormatter {
-	private void appendSpaces(StringBuilder sb, int level) {
-		for (int i = 0; i < level; i++) {
-			sb.append(' ');
+	private static final String INDENT = "                                                                ";
+
+	private static void appendSpaces(Appendable out, int level) throws IOException {
+		for (; level > INDENT.length(); level -= INDENT.length()) {
+			out.append(INDENT);
 		}
+		out.append(INDENT, 0, level);
+	}
+
+	public void process(Config node, Appendable out, int level) throws IOException {
+		write(node, out, level);
 	}
 
-	public void process(Config node, StringBuilder sb, int level) {
+	private static boolean write(Config node, Appendable out, int level) throws IOException {
 		if (!Utils.SHOW_UNIMPLEMENTED_ITEMS && node.getName().startsWith("*")) {
-			return;
+			return false;
 		}
-		appendSpaces(sb, level);
-		sb.append(node.getName());
-		sb.append(": ");
+		appendSpaces(out, level);
+		out.append(node.getName());
+		out.append(": ");
 		if (node.getValue() == null) {
-			sb.append("<None>");
+			out.append("<None>");
 		} else {
-			sb.append(node.getValue());
+			out.append(node.getValue());
 		}
-		sb.append("\n");
+		out.append('\n');
+		return true;
 	}
 
-	public void process(ConfigList list, StringBuilder sb, int level) {
+	public void process(ConfigList list, Appendable out, int level) throws IOException {
+		write(list, out, level, false);
+	}
+
+	/**
+	 * @param wrote whether anything was written before this list
+	 * @return whether anything was written before or by this list
+	 */
+	private static boolean write(ConfigList list, Appendable out, int level, boolean wrote) throws IOException {
 		if ((list.getName() != null) && (list.getName().length() > 0)) {
-			appendSpaces(sb, level);
-			sb.append("# ");
-			sb.append(list.getName());
-			sb.append(" #");
-			sb.append("\n");
+			appendSpaces(out, level);
+			out.append("# ");
+			out.append(list.getName());
+			out.append(" #\n");
+			wrote = true;
+		}
+		if (list.getState() == ConfigList.State.TIMED_OUT) {
+			appendSpaces(out, level);
+			out.append("<Timed out>\n");
+			wrote = true;
+		} else if (list.getState() == ConfigList.State.FAILED) {
+			appendSpaces(out, level);
+			out.append("<Failed: ");
+			out.append(list.getStateMessage());
+			out.append(">\n");
+			wrote = true;
 		}
 		for (ConfigBase node : list.getItems()) {
 			if (node instanceof Config) {
-				process((Config) node, sb, level);
+				wrote |= write((Config) node, out, level);
 			} else if (node instanceof ConfigList) {
-				if (sb.length() != 0) {
-					sb.append("\n");
+				if (wrote) {
+					out.append('\n');
 				}
-				process((ConfigList) node, sb, level + 1);
+				wrote = write((ConfigList) node, out, level + 1, wrote);
 			}
 		}
+		return wrote;
 	}
 }
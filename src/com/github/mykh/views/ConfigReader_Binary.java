@@ -0,0 +1,208 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.views;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigBoolean;
+import com.github.mykh.common.ConfigDouble;
+import com.github.mykh.common.ConfigEnum;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.ConfigLong;
+import com.github.mykh.common.Unit;
+
+/**
+ * Reads what {@link ConfigFormatter_Binary} wrote, directly from a buffer
+ * (which may be a mapped file): strings are decoded from the buffer in place,
+ * without copying the bytes first, and every dictionary string is decoded only
+ * once and then shared by all nodes that use it. Not thread safe.
+ */
+public class ConfigReader_Binary {
+	private final ByteBuffer buffer;
+	private final List<String> dictionary = new ArrayList<String>();
+	private char[] chars = new char[256];
+
+	/** Reads from the position to the limit of buffer. */
+	public ConfigReader_Binary(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	public boolean hasMore() {
+		return buffer.hasRemaining();
+	}
+
+	public long readVarint() throws IOException {
+		long result = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			result |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private int readLength() throws IOException {
+		long length = readVarint();
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IOException("Bad length " + length);
+		}
+		return (int) length;
+	}
+
+	/** Decodes UTF-8 straight from the buffer. */
+	private String readInline() throws IOException {
+		int length = readLength();
+		if (chars.length < length) {
+			chars = new char[Math.max(length, chars.length * 2)];
+		}
+		int count = 0;
+		int end = buffer.position() + length;
+		while (buffer.position() < end) {
+			int b = buffer.get() & 0xFF;
+			if (b < 0x80) {
+				chars[count++] = (char) b;
+				continue;
+			}
+			int extra;
+			int code;
+			if ((b & 0xE0) == 0xC0) {
+				extra = 1;
+				code = b & 0x1F;
+			} else if ((b & 0xF0) == 0xE0) {
+				extra = 2;
+				code = b & 0x0F;
+			} else if ((b & 0xF8) == 0xF0) {
+				extra = 3;
+				code = b & 0x07;
+			} else {
+				throw new IOException("Malformed UTF-8");
+			}
+			if (buffer.position() + extra > end) {
+				throw new IOException("Malformed UTF-8");
+			}
+			for (int i = 0; i < extra; i++) {
+				code = (code << 6) | (buffer.get() & 0x3F);
+			}
+			if (code >= 0x10000) {
+				code -= 0x10000;
+				chars[count++] = (char) (0xD800 + (code >> 10));
+				chars[count++] = (char) (0xDC00 + (code & 0x3FF));
+			} else {
+				chars[count++] = (char) code;
+			}
+		}
+		return new String(chars, 0, count);
+	}
+
+	/** Reads a string written by {@link ConfigFormatter_Binary#writeString(String)}. */
+	public String readString() throws IOException {
+		long ref = readVarint();
+		if (ref == ConfigFormatter_Binary.STRING_NULL) {
+			return null;
+		} else if (ref == ConfigFormatter_Binary.STRING_INLINE) {
+			String str = readInline();
+			dictionary.add(str);
+			return str;
+		}
+		long id = ref - ConfigFormatter_Binary.STRING_ID_BASE;
+		if (id >= dictionary.size()) {
+			throw new IOException("Unknown string id " + id);
+		}
+		return dictionary.get((int) id);
+	}
+
+	private String readValue() throws IOException {
+		long ref = readVarint();
+		if (ref == ConfigFormatter_Binary.STRING_NULL) {
+			return null;
+		} else if (ref == ConfigFormatter_Binary.STRING_INLINE) {
+			return readInline();
+		}
+		throw new IOException("Bad value reference " + ref);
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private Unit readUnit() throws IOException {
+		long unit = readVarint();
+		Unit[] units = Unit.values();
+		if (unit < 0 || unit >= units.length) {
+			throw new IOException("Unknown unit " + unit);
+		}
+		return units[(int) unit];
+	}
+
+	/** Reads the next node. */
+	public ConfigBase read() throws IOException {
+		try {
+			return readNode();
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Unexpected end of data");
+		}
+	}
+
+	private ConfigBase readNode() throws IOException {
+		long tag = readVarint();
+		String name = readString();
+		String hint = readString();
+		if (tag == ConfigFormatter_Binary.TAG_CONFIG) {
+			return new Config(name, readValue(), hint);
+		} else if (tag == ConfigFormatter_Binary.TAG_LONG) {
+			long number = unzigzag(readVarint());
+			return new ConfigLong(name, number, readUnit(), hint);
+		} else if (tag == ConfigFormatter_Binary.TAG_DOUBLE) {
+			double number = Double.longBitsToDouble(buffer.getLong());
+			int decimals = (int) readVarint();
+			return new ConfigDouble(name, number, decimals, readUnit(), hint);
+		} else if (tag == ConfigFormatter_Binary.TAG_BOOLEAN) {
+			return new ConfigBoolean(name, readVarint() != 0, hint);
+		} else if (tag == ConfigFormatter_Binary.TAG_ENUM) {
+			int code = (int) unzigzag(readVarint());
+			return new ConfigEnum(name, code, readString(), hint);
+		} else if (tag != ConfigFormatter_Binary.TAG_LIST) {
+			throw new IOException("Unknown node tag: " + tag);
+		}
+		ConfigList list = new ConfigList(name, hint);
+		long state = readVarint();
+		ConfigList.State[] states = ConfigList.State.values();
+		if (state < 0 || state >= states.length) {
+			throw new IOException("Unknown state " + state);
+		}
+		if (states[(int) state] != ConfigList.State.OK) {
+			list.setState(states[(int) state], readValue());
+		}
+		long count = readVarint();
+		if (count < 0 || count > buffer.remaining()) {
+			throw new IOException("Bad item count " + count);
+		}
+		for (long i = 0; i < count; i++) {
+			list.getItems().add(readNode());
+		}
+		return list;
+	}
+}
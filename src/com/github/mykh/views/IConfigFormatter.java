@@ -17,10 +17,17 @@
 
 package com.github.mykh.views;
 
+import java.io.IOException;
+
 import com.github.mykh.common.Config;
 import com.github.mykh.common.ConfigList;
 
+/**
+ * Writes a config tree to any character sink. Output is appended as the tree
+ * is walked, so with a streaming sink (like a {@link java.io.Writer} over a
+ * file) nothing but the current line is kept in memory.
+ */
 public interface IConfigFormatter {
-	public void process(Config node, StringBuilder sb, int level);
-	public void process(ConfigList list, StringBuilder sb, int level);
+	public void process(Config node, Appendable out, int level) throws IOException;
+	public void process(ConfigList list, Appendable out, int level) throws IOException;
 }
@@ -0,0 +1,57 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.views;
+
+import java.io.IOException;
+
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.ISectionSink;
+
+/**
+ * Formats every section as soon as it arrives and passes the text on, so the
+ * beginning of the report can be shown while the rest is still collected.
+ * Produces the same text as formatting the whole tree at once. Does not depend
+ * on Android and can be used on a plain JVM. See {@link ReportWriter} for
+ * output that does not need to be kept in memory at all.
+ */
+public class ReportStream implements ISectionSink {
+	private final IConfigFormatter formatter;
+	private final IReportListener listener;
+
+	public ReportStream(IConfigFormatter formatter, IReportListener listener) {
+		this.formatter = formatter;
+		this.listener = listener;
+	}
+
+	public void onSection(int index, ConfigList section) {
+		StringBuilder sb = new StringBuilder();
+		if (index > 0) {
+			sb.append('\n');
+		}
+		try {
+			formatter.process(section, sb, 1);
+		} catch (IOException e) {
+			// StringBuilder does not throw
+		}
+		listener.onChunk(sb);
+	}
+
+	public void onComplete() {
+		listener.onComplete();
+	}
+}
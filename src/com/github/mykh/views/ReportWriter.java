@@ -0,0 +1,73 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.views;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.ISectionSink;
+
+/**
+ * Formats every section straight into a writer (e.g. a
+ * {@link com.github.mykh.common.ChannelWriter} over a file, socket or pipe)
+ * and flushes it after each section, so a report of any size is written with
+ * constant memory. The first I/O error stops the output and is kept for
+ * {@link #getError()}. The writer is not closed.
+ */
+public class ReportWriter implements ISectionSink {
+	private final IConfigFormatter formatter;
+	private final Writer writer;
+	private IOException error;
+
+	public ReportWriter(IConfigFormatter formatter, Writer writer) {
+		this.formatter = formatter;
+		this.writer = writer;
+	}
+
+	public void onSection(int index, ConfigList section) {
+		if (error != null) {
+			return;
+		}
+		try {
+			if (index > 0) {
+				writer.write('\n');
+			}
+			formatter.process(section, writer, 1);
+			writer.flush();
+		} catch (IOException e) {
+			error = e;
+		}
+	}
+
+	public void onComplete() {
+		if (error != null) {
+			return;
+		}
+		try {
+			writer.flush();
+		} catch (IOException e) {
+			error = e;
+		}
+	}
+
+	/** The error that stopped the output, null if there was none. */
+	public IOException getError() {
+		return error;
+	}
+}
@@ -0,0 +1,67 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Fake /proc and /sys trees in a temporary directory, for the samplers and
+ * parsers that take their root or file path in a constructor.
+ */
+public class Fixtures {
+	private Fixtures() {
+	}
+
+	/** Creates an empty temporary directory. */
+	public static File createDir(String prefix) throws IOException {
+		File dir = File.createTempFile(prefix, "");
+		dir.delete();
+		if (!dir.mkdirs()) {
+			throw new IOException("Can not create " + dir);
+		}
+		return dir;
+	}
+
+	/** Writes content to path below root, creating the parent directories. */
+	public static File write(File root, String path, String content) throws IOException {
+		File file = new File(root, path);
+		file.getParentFile().mkdirs();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	/** Deletes file and, for a directory, everything below it. */
+	public static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,86 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.common;
+
+import junit.framework.TestCase;
+
+public class AtomicLongRingBufferTest extends TestCase {
+	public void testCopyTo() {
+		AtomicLongRingBuffer buffer = new AtomicLongRingBuffer(3, 2);
+		for (long i = 1; i <= 4; i++) {
+			buffer.add(new long[] { i, i * 10 });
+		}
+		LongRingBuffer copy = new LongRingBuffer(3, 2);
+		copy.add(new long[] { 99, 99 });
+		buffer.copyTo(copy);
+		assertEquals(3, copy.size());
+		assertEquals(2, copy.get(0, 0));
+		assertEquals(4, copy.getLatest(0));
+		assertEquals(40, copy.getLatest(1));
+	}
+
+	public void testCopyToSmallerBufferKeepsLatest() {
+		AtomicLongRingBuffer buffer = new AtomicLongRingBuffer(8, 1);
+		for (long i = 1; i <= 6; i++) {
+			buffer.add(new long[] { i });
+		}
+		LongRingBuffer copy = new LongRingBuffer(2, 1);
+		buffer.copyTo(copy);
+		assertEquals(2, copy.size());
+		assertEquals(5, copy.get(0, 0));
+		assertEquals(6, copy.get(1, 0));
+	}
+
+	/** A reader must never see a record with columns from two different writes. */
+	public void testReadersNeverSeeTornRecords() throws Exception {
+		final int width = 4;
+		final AtomicLongRingBuffer buffer = new AtomicLongRingBuffer(16, width);
+		final long writes = 200000;
+		Thread writer = new Thread(new Runnable() {
+			public void run() {
+				long[] record = new long[width];
+				for (long i = 1; i <= writes; i++) {
+					for (int j = 0; j < width; j++) {
+						record[j] = i;
+					}
+					buffer.add(record);
+				}
+			}
+		});
+		writer.start();
+		LongRingBuffer copy = new LongRingBuffer(16, width);
+		long last = 0;
+		while (writer.isAlive() || last < writes) {
+			buffer.copyTo(copy);
+			for (int i = 0; i < copy.size(); i++) {
+				for (int j = 1; j < width; j++) {
+					assertEquals(copy.get(i, 0), copy.get(i, j));
+				}
+				if (i > 0) {
+					assertEquals(copy.get(i - 1, 0) + 1, copy.get(i, 0));
+				}
+			}
+			if (copy.size() > 0) {
+				assertTrue(copy.getLatest(0) >= last);
+				last = copy.getLatest(0);
+			}
+		}
+		writer.join();
+	}
+}
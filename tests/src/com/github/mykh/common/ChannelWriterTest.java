@@ -0,0 +1,86 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import junit.framework.TestCase;
+
+public class ChannelWriterTest extends TestCase {
+	private ByteArrayOutputStream bytes;
+	private ChannelWriter writer;
+
+	@Override
+	protected void setUp() {
+		bytes = new ByteArrayOutputStream();
+		writer = new ChannelWriter(Channels.newChannel(bytes), 16);
+	}
+
+	private String written() throws IOException {
+		writer.close();
+		return new String(bytes.toByteArray(), "UTF-8");
+	}
+
+	public void testTextLongerThanTheBuffer() throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			text.append("line ").append(i).append(" é中\n");
+		}
+		writer.write(text.toString());
+		assertEquals(text.toString(), written());
+	}
+
+	public void testSurrogatePairSplitOverWrites() throws IOException {
+		writer.write("a\uD83D");
+		writer.write("\uDE00b");
+		assertEquals("a😀b", written());
+	}
+
+	public void testUnpairedHighSurrogateBeforePair() throws IOException {
+		writer.write("a\uD800");
+		writer.write("😀b");
+		writer.write("c");
+		assertEquals("a?😀bc", written());
+	}
+
+	public void testSingleChars() throws IOException {
+		writer.write('x');
+		writer.write(0xD83D);
+		writer.write(0xDE00);
+		writer.write('y');
+		assertEquals("x😀y", written());
+	}
+
+	public void testUnpairedHighSurrogateAtTheEnd() throws IOException {
+		writer.write("z\uD83D");
+		assertEquals("z?", written());
+	}
+
+	public void testWriteAfterClose() throws IOException {
+		writer.close();
+		try {
+			writer.write("x");
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.common;
+
+import junit.framework.TestCase;
+
+public class ConfigSchemaTest extends TestCase {
+	public void testInterned() {
+		ConfigSchema schema = ConfigSchema.of("Schema test", "hint");
+		assertSame(schema, ConfigSchema.of("Schema test", "hint"));
+		assertTrue(schema.getId() >= 0);
+		assertNotSame(schema, ConfigSchema.of("Schema test", "other hint"));
+		assertSame(ConfigSchema.of("Schema test", ""), ConfigSchema.of("Schema test"));
+	}
+
+	public void testNullHintIsNotShared() {
+		ConfigSchema schema = ConfigSchema.of("Schema test", null);
+		assertEquals(-1, schema.getId());
+		assertNotSame(schema, ConfigSchema.of("Schema test", null));
+		assertEquals(-1, ConfigSchema.unshared("Schema test", "hint").getId());
+	}
+
+	public void testPlainNodesHaveNoSchema() {
+		ConfigBase config = new Config("Plain", "value", "hint");
+		assertNull(config.getSchema());
+		assertEquals("Plain", config.getName());
+		assertEquals("hint", config.getHint());
+	}
+
+	public void testNodesShareTheSchema() {
+		ConfigSchema schema = ConfigSchema.of("Shared", "hint");
+		ConfigBase[] nodes = { new Config(schema, "value"), new ConfigLong(schema, 1, Unit.NONE),
+				new ConfigDouble(schema, 1.5, 1, Unit.PERCENT), new ConfigBoolean(schema, true),
+				new ConfigEnum(schema, 2, "two"), new ConfigList(schema) };
+		for (ConfigBase node : nodes) {
+			assertSame(schema, node.getSchema());
+			assertEquals("Shared", node.getName());
+			assertEquals("hint", node.getHint());
+		}
+	}
+}
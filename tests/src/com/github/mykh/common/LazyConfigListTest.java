@@ -0,0 +1,101 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.common;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import junit.framework.TestCase;
+
+public class LazyConfigListTest extends TestCase {
+	private int calls = 0;
+
+	private Callable<List<ConfigBase>> items(final String... names) {
+		return new Callable<List<ConfigBase>>() {
+			public List<ConfigBase> call() {
+				calls++;
+				List<ConfigBase> items = new ArrayList<ConfigBase>();
+				for (String name : names) {
+					items.add(new Config(name, name));
+				}
+				return items;
+			}
+		};
+	}
+
+	public void testEvaluatedOnce() {
+		LazyConfigList list = new LazyConfigList("lazy", items("a", "b"));
+		assertFalse(list.isEvaluated());
+		assertEquals(0, calls);
+		assertEquals(ConfigList.State.OK, list.getState());
+		assertTrue(list.isEvaluated());
+		assertEquals(2, list.getItems().size());
+		assertEquals("b", list.getItems().get(1).getName());
+		assertEquals(1, calls);
+	}
+
+	public void testFailingSupplier() {
+		LazyConfigList list = new LazyConfigList("lazy", new Callable<List<ConfigBase>>() {
+			public List<ConfigBase> call() throws IOException {
+				throw new IOException("boom");
+			}
+		});
+		assertEquals(0, list.getItems().size());
+		assertEquals(ConfigList.State.FAILED, list.getState());
+		assertTrue(list.getStateMessage(), list.getStateMessage().contains("boom"));
+	}
+
+	public void testSealBeforeEvaluation() {
+		LazyConfigList list = new LazyConfigList("lazy", items("a"));
+		list.seal();
+		assertFalse(list.isEvaluated());
+		try {
+			list.getItems().add(new Config("b", "b"));
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		assertEquals(1, calls);
+	}
+
+	public void testLazyConfig() {
+		LazyConfig config = new LazyConfig("value", new Callable<String>() {
+			public String call() {
+				calls++;
+				return "computed";
+			}
+		});
+		assertFalse(config.isEvaluated());
+		assertEquals("computed", config.getValue());
+		assertEquals("computed", config.getValue());
+		assertEquals(1, calls);
+	}
+
+	public void testFailingLazyConfig() {
+		LazyConfig config = new LazyConfig("value", new Callable<String>() {
+			public String call() {
+				throw new IllegalStateException();
+			}
+		});
+		assertNull(config.getValue());
+		assertTrue(config.isEvaluated());
+	}
+}
@@ -0,0 +1,69 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.common;
+
+import junit.framework.TestCase;
+
+public class LongRingBufferTest extends TestCase {
+	public void testEmpty() {
+		LongRingBuffer buffer = new LongRingBuffer(4, 2);
+		assertEquals(4, buffer.capacity());
+		assertEquals(2, buffer.width());
+		assertEquals(0, buffer.size());
+		assertEquals(0, buffer.average(0));
+	}
+
+	public void testAddAndAggregate() {
+		LongRingBuffer buffer = new LongRingBuffer(4, 2);
+		buffer.add(new long[] { 1, -10 });
+		buffer.add(new long[] { 5, 20 });
+		buffer.add(new long[] { 3, 30 });
+		assertEquals(3, buffer.size());
+		assertEquals(1, buffer.get(0, 0));
+		assertEquals(3, buffer.getLatest(0));
+		assertEquals(1, buffer.min(0));
+		assertEquals(5, buffer.max(0));
+		assertEquals(9, buffer.sum(0));
+		assertEquals(3, buffer.average(0));
+		assertEquals(-10, buffer.min(1));
+		assertEquals(40, buffer.sum(1));
+	}
+
+	public void testOverwritesOldest() {
+		LongRingBuffer buffer = new LongRingBuffer(3, 1);
+		for (long i = 1; i <= 5; i++) {
+			buffer.add(i);
+		}
+		assertEquals(3, buffer.size());
+		assertEquals(3, buffer.get(0, 0));
+		assertEquals(4, buffer.get(1, 0));
+		assertEquals(5, buffer.get(2, 0));
+		assertEquals(3, buffer.min(0));
+		assertEquals(12, buffer.sum(0));
+	}
+
+	public void testClear() {
+		LongRingBuffer buffer = new LongRingBuffer(2, 1);
+		buffer.add(7);
+		buffer.clear();
+		assertEquals(0, buffer.size());
+		buffer.add(8);
+		assertEquals(8, buffer.getLatest(0));
+	}
+}
@@ -0,0 +1,101 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.common;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.github.mykh.Fixtures;
+
+import junit.framework.TestCase;
+
+public class ProcFileReaderTest extends TestCase {
+	private File root;
+
+	@Override
+	protected void setUp() throws IOException {
+		root = Fixtures.createDir("reader");
+	}
+
+	@Override
+	protected void tearDown() {
+		Fixtures.delete(root);
+	}
+
+	public void testReadsTheCurrentContentEveryTime() throws IOException {
+		File file = Fixtures.write(root, "loadavg", "0.50 0.40 0.30 1/100 42\n");
+		ProcFileReader reader = new ProcFileReader(file.getPath());
+		try {
+			assertEquals(24, reader.read());
+			assertEquals("0.50 0.40 0.30 1/100 42\n", reader.getString());
+			Fixtures.write(root, "loadavg", "1.00\n");
+			assertEquals(5, reader.read());
+			assertEquals("1.00\n", reader.getString());
+			assertTrue(reader.isOpen());
+		} finally {
+			reader.close();
+		}
+	}
+
+	public void testFileLargerThanTheBuffer() throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			content.append("line ").append(i).append('\n');
+		}
+		File file = Fixtures.write(root, "big", content.toString());
+		ProcFileReader reader = new ProcFileReader(file.getPath());
+		try {
+			assertEquals(content.length(), reader.read());
+			assertEquals(content.toString(), reader.getString());
+		} finally {
+			reader.close();
+		}
+	}
+
+	public void testReadOtherPath() throws IOException {
+		File file = Fixtures.write(root, "1/stat", "1 (init) S 0\n");
+		ProcFileReader reader = new ProcFileReader();
+		try {
+			reader.read(file.getPath());
+			assertEquals("1 (init) S 0\n", reader.getString());
+			assertFalse(reader.isOpen());
+		} finally {
+			reader.close();
+		}
+	}
+
+	public void testFailedReadClosesAndRecovers() throws IOException {
+		File file = new File(root, "later");
+		ProcFileReader reader = new ProcFileReader(file.getPath());
+		try {
+			reader.read();
+			fail();
+		} catch (IOException e) {
+			assertFalse(reader.isOpen());
+		}
+		Fixtures.write(root, "later", "ok\n");
+		try {
+			reader.read();
+			assertEquals("ok\n", reader.getString());
+		} finally {
+			reader.close();
+		}
+		assertEquals(0, reader.getLength());
+	}
+}
@@ -0,0 +1,122 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.common;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class ProcParserTest extends TestCase {
+	private static ByteBuffer bytes(String str) {
+		return ByteBuffer.wrap(str.getBytes());
+	}
+
+	private static class KeyValues implements IKeyValueHandler {
+		final List<String> keys = new ArrayList<String>();
+		final List<String> values = new ArrayList<String>();
+
+		public void onKeyValue(ByteBuffer buffer, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+			keys.add(ProcParser.toString(buffer, keyStart, keyEnd));
+			values.add(ProcParser.toString(buffer, valueStart, valueEnd));
+		}
+	}
+
+	private static class Fields implements IFieldHandler {
+		final List<String> fields = new ArrayList<String>();
+		final List<Integer> fieldCounts = new ArrayList<Integer>();
+
+		public void onField(int line, int field, ByteBuffer buffer, int start, int end) {
+			fields.add(line + ":" + field + ":" + ProcParser.toString(buffer, start, end));
+		}
+
+		public void onLineEnd(int line, int fieldCount) {
+			fieldCounts.add(fieldCount);
+		}
+	}
+
+	public void testParseKeyValues() {
+		String meminfo = "MemTotal:        3918604 kB\nMemFree:  \t 123 kB \n\nno colon here\r\nHugePages_Total:       0";
+		KeyValues handler = new KeyValues();
+		ProcParser.parseKeyValues(bytes(meminfo), meminfo.length(), handler);
+		assertEquals(4, handler.keys.size());
+		assertEquals("MemTotal", handler.keys.get(0));
+		assertEquals("3918604 kB", handler.values.get(0));
+		assertEquals("MemFree", handler.keys.get(1));
+		assertEquals("123 kB", handler.values.get(1));
+		assertEquals("no colon here", handler.keys.get(2));
+		assertEquals("", handler.values.get(2));
+		assertEquals("HugePages_Total", handler.keys.get(3));
+		assertEquals("0", handler.values.get(3));
+	}
+
+	public void testParseFields() {
+		String stat = "cpu  10 20\n\n  cpu0 1\t2 3\n";
+		Fields handler = new Fields();
+		ProcParser.parseFields(bytes(stat), stat.length(), 0, handler);
+		assertEquals("[0:0:cpu, 0:1:10, 0:2:20, 1:0:cpu0, 1:1:1, 1:2:2, 1:3:3]", handler.fields.toString());
+		assertEquals("[3, 4]", handler.fieldCounts.toString());
+	}
+
+	public void testParseFieldsSplitOnColon() {
+		String netDev = "  eth0:123 4\nwlan0: 5 6\n";
+		Fields handler = new Fields();
+		ProcParser.parseFields(bytes(netDev), netDev.length(), ProcParser.SPLIT_ON_COLON, handler);
+		assertEquals("[0:0:eth0, 0:1:123, 0:2:4, 1:0:wlan0, 1:1:5, 1:2:6]", handler.fields.toString());
+	}
+
+	public void testParseLong() {
+		ByteBuffer buffer = bytes("  -42 kB 9223372036854775807 x");
+		assertEquals(-42, ProcParser.parseLong(buffer, 0, 8));
+		assertEquals(Long.MAX_VALUE, ProcParser.parseLong(buffer, 8, 28));
+		assertEquals(0, ProcParser.parseLong(buffer, 28, 30));
+		// the end of the span is respected
+		assertEquals(-4, ProcParser.parseLong(buffer, 0, 4));
+	}
+
+	public void testParseFixed() {
+		assertEquals(1234, ProcParser.parseFixed(bytes("12.34"), 0, 5, 2));
+		assertEquals(1234, ProcParser.parseFixed(bytes(" 12.3456"), 0, 8, 2));
+		assertEquals(1200, ProcParser.parseFixed(bytes("12"), 0, 2, 2));
+		assertEquals(1230, ProcParser.parseFixed(bytes("12.3 avg"), 0, 8, 2));
+	}
+
+	public void testSpans() {
+		ByteBuffer buffer = bytes(" \tab c \r\n");
+		assertEquals(2, ProcParser.skipSpaces(buffer, 0, 9));
+		// '\n' is a line end, not a space
+		assertEquals(9, ProcParser.trimEnd(buffer, 0, 9));
+		assertEquals(6, ProcParser.trimEnd(buffer, 0, 8));
+		assertEquals(5, ProcParser.indexOf(buffer, 0, 9, (byte) 'c'));
+		assertEquals(-1, ProcParser.indexOf(buffer, 0, 5, (byte) 'c'));
+		assertTrue(ProcParser.equalsAscii(buffer, 2, 4, "ab"));
+		assertFalse(ProcParser.equalsAscii(buffer, 2, 5, "ab"));
+		assertTrue(ProcParser.startsWithAscii(buffer, 2, 6, "ab"));
+		assertTrue(ProcParser.isDigits(bytes("0123"), 0, 4));
+		assertFalse(ProcParser.isDigits(bytes("01a3"), 0, 4));
+		assertFalse(ProcParser.isDigits(bytes("0"), 0, 0));
+	}
+
+	public void testToStringDecodesUtf8() {
+		String text = "café €";
+		ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(java.nio.charset.Charset.forName("UTF-8")));
+		assertEquals(text, ProcParser.toString(buffer, 0, buffer.capacity()));
+	}
+}
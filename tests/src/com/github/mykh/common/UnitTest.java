@@ -0,0 +1,51 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.common;
+
+import junit.framework.TestCase;
+
+public class UnitTest extends TestCase {
+	private static String number(String format, double value) {
+		return String.format(Utils.locale, format, value);
+	}
+
+	public void testLong() {
+		assertEquals("42", Unit.NONE.format(42));
+		assertEquals("1024 kB", Unit.KILOBYTES.format(1024));
+		assertEquals("120 ms", Unit.MILLISECONDS.format(120));
+		assertEquals("-350 mA", Unit.MILLIAMPS.format(-350));
+	}
+
+	public void testNoSpaceBeforePercentDegreesAndVolts() {
+		assertEquals("87%", Unit.PERCENT.format(87));
+		assertEquals(number("%.1f", 31.2) + "°C", Unit.CELSIUS.format(31.2, 1));
+		assertEquals(number("%.3f", 3.95) + "V", Unit.VOLTS.format(3.95, 3));
+	}
+
+	public void testBytes() {
+		assertEquals(number("%.1f", 1.5) + " MB", Unit.BYTES.format(3 * Utils.MB / 2));
+		assertEquals(number("%.2f", 2.0) + " GB", Unit.BYTES.format(2.0 * 1024 * Utils.MB, 3));
+		assertEquals(number("%.1f", 0.5) + " KB", Unit.BYTES.format(512));
+	}
+
+	public void testDecimalsClamped() {
+		assertEquals("3 ms", Unit.MILLISECONDS.format(2.6, -1));
+		assertEquals(number("%.4f", Math.PI), Unit.NONE.format(Math.PI, 9));
+	}
+}
@@ -0,0 +1,55 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import junit.framework.TestCase;
+
+public class BatteryHistoryTest extends TestCase {
+	private static final long MINUTE = 60 * 1000;
+
+	private static BatterySample sample(long time, int level, int plugged) {
+		return new BatterySample(time, -1, -1, level, plugged, Boolean.TRUE, 100, -1, null, -1, -1,
+				BatterySample.UNKNOWN, BatterySample.UNKNOWN);
+	}
+
+	public void testRateSinceUnplugged() {
+		BatteryHistory history = new BatteryHistory(16);
+		history.add(sample(0, 100, 1)); // plugged, not part of the rate
+		history.add(sample(10 * MINUTE, 100, 0));
+		history.add(sample(40 * MINUTE, 95, 0));
+		history.add(sample(70 * MINUTE, 90, 0));
+		long rate = history.getDischargeRate();
+		assertEquals(1000, rate); // 10 % in one hour, in basis points
+		assertEquals("10.0%/h", BatteryHistory.formatDischargeRate(rate));
+		assertEquals("9h 00m", BatteryHistory.formatTimeRemaining(rate, sample(70 * MINUTE, 90, 0)));
+		assertEquals(rate, history.getDischargeRate());
+	}
+
+	public void testNoRateWhilePluggedOrTooShort() {
+		BatteryHistory history = new BatteryHistory(16);
+		assertEquals(-1, history.getDischargeRate());
+		history.add(sample(0, 100, 0));
+		history.add(sample(MINUTE, 99, 0));
+		assertEquals(-1, history.getDischargeRate());
+		history.add(sample(60 * MINUTE, 90, 1));
+		assertEquals(-1, history.getDischargeRate());
+		assertNull(BatteryHistory.formatDischargeRate(-1));
+		assertNull(BatteryHistory.formatTimeRemaining(-1, sample(0, 90, 0)));
+	}
+}
@@ -0,0 +1,98 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.github.mykh.Fixtures;
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+
+import junit.framework.TestCase;
+
+public class CpuFreqSamplerTest extends TestCase {
+	private File root;
+
+	@Override
+	protected void setUp() throws IOException {
+		root = Fixtures.createDir("cpu");
+		Fixtures.write(root, "cpu0/cpufreq/scaling_cur_freq", "1000000\n");
+		Fixtures.write(root, "cpu0/cpufreq/stats/time_in_state", "300000 100\n1000000 300\n");
+		Fixtures.write(root, "cpu0/cpufreq/stats/total_trans", "40\n");
+		Fixtures.write(root, "cpu1/online", "0\n");
+		Fixtures.write(root, "cpu1/cpufreq/scaling_cur_freq", "300000\n");
+		Fixtures.write(root, "cpu2/topology/core_id", "2\n");
+		Fixtures.write(root, "cpufreq/policy0/scaling_governor", "schedutil\n");
+		Fixtures.write(root, "cpuidle/current_driver", "psci_idle\n");
+	}
+
+	@Override
+	protected void tearDown() {
+		Fixtures.delete(root);
+	}
+
+	private static List<ConfigBase> core(ConfigList section, int index) {
+		return ((ConfigList) section.getItems().get(index)).getItems();
+	}
+
+	private static String value(List<ConfigBase> items, int index) {
+		return ((Config) items.get(index)).getValue();
+	}
+
+	public void testCores() {
+		ConfigList section = new CpuFreqSampler(root.getPath()).collect();
+		assertEquals(3, section.getItems().size());
+		assertEquals("cpu0", section.getItems().get(0).getName());
+		List<ConfigBase> cpu0 = core(section, 0);
+		assertEquals("1000 MHz", value(cpu0, 0));
+		assertEquals("40 (+0)", value(cpu0, 1));
+		assertEquals("300 MHz", cpu0.get(2).getName());
+		assertEquals("- / 25.0%", value(cpu0, 2));
+		assertEquals("- / 75.0%", value(cpu0, 3));
+		assertEquals("offline", value(core(section, 1), 0));
+		assertEquals("no cpufreq data", value(core(section, 2), 0));
+	}
+
+	public void testResidencyOfTheLastInterval() throws IOException {
+		CpuFreqSampler sampler = new CpuFreqSampler(root.getPath());
+		sampler.sampleNow();
+		Fixtures.write(root, "cpu0/cpufreq/stats/time_in_state", "300000 150\n1000000 300\n");
+		Fixtures.write(root, "cpu0/cpufreq/stats/total_trans", "45\n");
+		List<ConfigBase> cpu0 = core(sampler.collect(), 0);
+		assertEquals("45 (+5)", value(cpu0, 1));
+		assertEquals("100.0% / 33.3%", value(cpu0, 2));
+		assertEquals("0.0% / 66.7%", value(cpu0, 3));
+	}
+
+	public void testMoreStatesThanTheInitialArrays() throws IOException {
+		StringBuilder states = new StringBuilder();
+		for (int i = 1; i <= 20; i++) {
+			states.append(i * 100000).append(' ').append(10).append('\n');
+		}
+		Fixtures.write(root, "cpu0/cpufreq/stats/time_in_state", states.toString());
+		List<ConfigBase> cpu0 = core(new CpuFreqSampler(root.getPath()).collect(), 0);
+		assertEquals(2 + 20, cpu0.size());
+		assertEquals("100 MHz", cpu0.get(2).getName());
+		assertEquals("2000 MHz", cpu0.get(21).getName());
+		assertEquals("- / 5.0%", value(cpu0, 21));
+	}
+}
@@ -0,0 +1,69 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.github.mykh.Fixtures;
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+
+import junit.framework.TestCase;
+
+public class DiskStatsSamplerTest extends TestCase {
+	private File root;
+	private File file;
+
+	private static String line(String name, long reads, long readTicks, long writes, long inFlight) {
+		return "   8       0 " + name + " " + reads + " 5 " + (reads * 8) + " " + readTicks + " " + writes + " 2 "
+				+ (writes * 8) + " 40 " + inFlight + " 300 500 0 0 0 0\n";
+	}
+
+	@Override
+	protected void setUp() throws IOException {
+		root = Fixtures.createDir("diskstats");
+		file = Fixtures.write(root, "diskstats", line("loop0", 10, 1, 0, 0) + line("ram0", 0, 0, 0, 0)
+				+ line("sda", 100, 200, 50, 0) + line("sdb", 0, 0, 0, 0));
+	}
+
+	@Override
+	protected void tearDown() {
+		Fixtures.delete(root);
+	}
+
+	public void testTotalsAfterTheFirstSample() {
+		List<ConfigBase> items = new DiskStatsSampler(file.getPath()).collect().getItems();
+		// loop and RAM disks are skipped, idle devices are not shown
+		assertEquals(1, items.size());
+		assertEquals("sda", items.get(0).getName());
+		assertEquals("100 reads, 50 writes since boot", ((Config) items.get(0)).getValue());
+	}
+
+	public void testLatencyAndInFlightOfTheLastInterval() throws IOException {
+		DiskStatsSampler sampler = new DiskStatsSampler(file.getPath());
+		sampler.sampleNow();
+		// 10 more reads that took 50 ms together, no writes
+		Fixtures.write(root, "diskstats", line("sda", 110, 250, 50, 3));
+		String value = ((Config) sampler.collect().getItems().get(0)).getValue();
+		assertTrue(value, value.contains(" 5.0 ms, write 0 IOPS "));
+		assertTrue(value, value.endsWith(", in flight 3"));
+	}
+}
@@ -0,0 +1,101 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.github.mykh.Fixtures;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+
+import junit.framework.TestCase;
+
+public class InterruptSamplerTest extends TestCase {
+	private File root;
+
+	private static String interrupts(long timer0, long timer2, long ipi0, long ipi2) {
+		return "           CPU0       CPU2\n"
+				+ " 27: " + timer0 + " " + timer2 + " GIC 27 Level arch_timer\n"
+				+ " 45: 7 7 GIC 45 Edge mmc0\n"
+				+ "IPI0: " + ipi0 + " " + ipi2 + " Rescheduling interrupts\n";
+	}
+
+	@Override
+	protected void setUp() throws IOException {
+		root = Fixtures.createDir("interrupts");
+		Fixtures.write(root, "interrupts", interrupts(1000, 2000, 50, 60));
+		Fixtures.write(root, "softirqs", "                    CPU0       CPU2\n"
+				+ "          HI:          0          0\n"
+				+ "       TIMER:        100        200\n");
+	}
+
+	@Override
+	protected void tearDown() {
+		Fixtures.delete(root);
+	}
+
+	private static List<ConfigBase> table(ConfigList section, int index) {
+		return ((ConfigList) section.getItems().get(index)).getItems();
+	}
+
+	public void testNoRatesAfterTheFirstSample() {
+		ConfigList section = new InterruptSampler(root.getPath()).collect();
+		assertEquals(2, section.getItems().size());
+		assertEquals("Hardware interrupts", section.getItems().get(0).getName());
+		assertEquals(0, table(section, 0).size());
+		assertEquals("Softirqs", section.getItems().get(1).getName());
+		assertEquals(0, table(section, 1).size());
+	}
+
+	public void testBusiestSourcesPerCpu() throws IOException {
+		InterruptSampler sampler = new InterruptSampler(root.getPath());
+		sampler.sampleNow();
+		// the timer fired more often than IPI0 on CPU0 and less often on CPU2, mmc0 not at all
+		Fixtures.write(root, "interrupts", interrupts(2000, 2010, 60, 1060));
+		List<ConfigBase> cpus = table(sampler.collect(), 0);
+		assertEquals(2, cpus.size());
+		assertEquals("CPU0", cpus.get(0).getName());
+		List<ConfigBase> cpu0 = ((ConfigList) cpus.get(0)).getItems();
+		assertEquals(2, cpu0.size());
+		assertEquals("27 (GIC 27 Level arch_timer)", cpu0.get(0).getName());
+		assertEquals("IPI0 (Rescheduling interrupts)", cpu0.get(1).getName());
+		assertEquals("CPU2", cpus.get(1).getName());
+		List<ConfigBase> cpu2 = ((ConfigList) cpus.get(1)).getItems();
+		assertEquals(2, cpu2.size());
+		assertEquals("IPI0 (Rescheduling interrupts)", cpu2.get(0).getName());
+		assertEquals("27 (GIC 27 Level arch_timer)", cpu2.get(1).getName());
+	}
+
+	public void testRowsMatchedByName() throws IOException {
+		InterruptSampler sampler = new InterruptSampler(root.getPath());
+		sampler.sampleNow();
+		// reordered rows, only IPI0 changed
+		Fixtures.write(root, "interrupts", "           CPU0       CPU2\n"
+				+ "IPI0: 51 60 Rescheduling interrupts\n"
+				+ " 45: 7 7 GIC 45 Edge mmc0\n"
+				+ " 27: 1000 2000 GIC 27 Level arch_timer\n");
+		List<ConfigBase> cpus = table(sampler.collect(), 0);
+		List<ConfigBase> cpu0 = ((ConfigList) cpus.get(0)).getItems();
+		assertEquals(1, cpu0.size());
+		assertEquals("IPI0 (Rescheduling interrupts)", cpu0.get(0).getName());
+		assertEquals(0, ((ConfigList) cpus.get(1)).getItems().size());
+	}
+}
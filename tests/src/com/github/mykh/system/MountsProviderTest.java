@@ -0,0 +1,73 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.github.mykh.Fixtures;
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+
+import junit.framework.TestCase;
+
+public class MountsProviderTest extends TestCase {
+	private File root;
+	private MountsProvider mounts;
+
+	@Override
+	protected void setUp() throws IOException {
+		root = Fixtures.createDir("mounts");
+		File file = Fixtures.write(root, "mounts", "rootfs / rootfs ro,seclabel 0 0\n"
+				+ "proc /proc proc rw,relatime 0 0\n"
+				+ "/dev/block/dm-0 /system ext4 ro,seclabel,relatime 0 0\n"
+				+ "sysfs /sys sysfs rw,seclabel,relatime 0 0\n"
+				+ "/dev/fuse /mnt/My\\040Files fuse rw,nosuid 0 0\n"
+				+ "truncated line\n");
+		mounts = new MountsProvider(file.getPath());
+	}
+
+	@Override
+	protected void tearDown() {
+		mounts.shutdown();
+		Fixtures.delete(root);
+	}
+
+	public void testPseudoFileSystemsAreSkipped() throws IOException {
+		List<ConfigBase> items = mounts.collect().getItems();
+		assertEquals(2, items.size());
+		assertEquals("/system", items.get(0).getName());
+		assertTrue(((Config) items.get(0)).getValue().endsWith("ext4 /dev/block/dm-0 (ro,seclabel,relatime)"));
+	}
+
+	public void testOctalEscapes() throws IOException {
+		List<ConfigBase> items = mounts.collect().getItems();
+		assertEquals("/mnt/My Files", items.get(1).getName());
+		assertTrue(((Config) items.get(1)).getValue().endsWith("fuse /dev/fuse (rw,nosuid)"));
+	}
+
+	public void testCapacityOfSeveralPaths() {
+		String[] capacities = mounts.getCapacityStrs(root.getPath(), null, root.getPath());
+		assertEquals(3, capacities.length);
+		assertNotNull(capacities[0]);
+		assertNull(capacities[1]);
+		assertEquals(capacities[0], capacities[2]);
+	}
+}
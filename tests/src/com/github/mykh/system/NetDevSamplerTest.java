@@ -0,0 +1,89 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.github.mykh.Fixtures;
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigList;
+
+import junit.framework.TestCase;
+
+public class NetDevSamplerTest extends TestCase {
+	private static final String NET_DEV = "Inter-|   Receive                                                |  Transmit\n"
+			+ " face |bytes    packets errs drop fifo frame compressed multicast|bytes    packets errs drop fifo colls carrier compressed\n"
+			+ "    lo:    2048      10    0    0    0     0          0         0     2048      10    0    0    0     0       0          0\n"
+			+ " wlan0: 5242880    4000    1    2    0     0          0         0   204800    1500    3    4    0     0       0          0\n";
+
+	private File root;
+
+	@Override
+	protected void setUp() throws IOException {
+		root = Fixtures.createDir("net");
+	}
+
+	@Override
+	protected void tearDown() {
+		Fixtures.delete(root);
+	}
+
+	private void writeStatistics(String iface, long rxBytes, long txBytes) throws IOException {
+		String dir = "class/net/" + iface + "/statistics/";
+		Fixtures.write(root, dir + "rx_bytes", rxBytes + "\n");
+		Fixtures.write(root, dir + "tx_bytes", txBytes + "\n");
+		for (String counter : new String[] { "rx_packets", "rx_errors", "rx_dropped", "tx_packets", "tx_errors",
+				"tx_dropped" }) {
+			Fixtures.write(root, dir + counter, "0\n");
+		}
+	}
+
+	public void testProcNetDev() throws IOException {
+		Fixtures.write(root, "net/dev", NET_DEV);
+		NetDevSampler sampler = new NetDevSampler(root + "/net/dev", root + "/class/net");
+		ConfigList section = sampler.collect();
+		assertEquals(2, section.getItems().size());
+		Config wlan = (Config) section.getItems().get(1);
+		assertEquals("wlan0", wlan.getName());
+		assertEquals("rx 5.0 MB, tx 200.0 KB, errors 1/3, dropped 2/4", wlan.getValue());
+	}
+
+	public void testSysfsWhenProcIsNotReadable() throws IOException {
+		writeStatistics("rmnet0", 1024, 3 * 1024 * 1024);
+		Fixtures.write(root, "class/net/bonding_masters", "\n");
+		NetDevSampler sampler = new NetDevSampler(root + "/net/dev", root + "/class/net");
+		ConfigList section = sampler.collect();
+		assertEquals(1, section.getItems().size());
+		Config rmnet = (Config) section.getItems().get(0);
+		assertEquals("rmnet0", rmnet.getName());
+		assertEquals("rx 1.0 KB, tx 3.0 MB, errors 0/0, dropped 0/0", rmnet.getValue());
+	}
+
+	public void testVanishedInterfaceIsNotShown() throws IOException {
+		Fixtures.write(root, "net/dev", NET_DEV);
+		NetDevSampler sampler = new NetDevSampler(root + "/net/dev", root + "/class/net");
+		sampler.sampleNow();
+		Fixtures.write(root, "net/dev", NET_DEV.substring(0, NET_DEV.indexOf(" wlan0")));
+		sampler.sampleNow();
+		ConfigList section = sampler.collect();
+		assertEquals(1, section.getItems().size());
+		assertEquals("lo", section.getItems().get(0).getName());
+	}
+}
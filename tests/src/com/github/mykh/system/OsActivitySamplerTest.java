@@ -0,0 +1,94 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.github.mykh.Fixtures;
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.Utils;
+
+import junit.framework.TestCase;
+
+public class OsActivitySamplerTest extends TestCase {
+	private File root;
+
+	private static final String SCHEDSTAT_HEADER = "version 15\ntimestamp 4294892296\n";
+
+	private static String cpu(int index, long runDelay, long slices) {
+		return "cpu" + index + " 0 0 12 5 7 3 900000 " + runDelay + " " + slices + "\n"
+				+ "domain0 3 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1\n";
+	}
+
+	@Override
+	protected void setUp() throws IOException {
+		root = Fixtures.createDir("os_activity");
+		Fixtures.write(root, "uptime", "93784.50 180000.25\n");
+		Fixtures.write(root, "loadavg", "0.52 0.40 0.35 2/345 1234\n");
+	}
+
+	@Override
+	protected void tearDown() {
+		Fixtures.delete(root);
+	}
+
+	private static String valueOf(List<ConfigBase> items, String name) {
+		for (ConfigBase item : items) {
+			if (item.getName().equals(name)) {
+				return ((Config) item).getValue();
+			}
+		}
+		fail(name + " missing");
+		return null;
+	}
+
+	public void testUptimeAndLoad() {
+		List<ConfigBase> items = new OsActivitySampler(root.getPath()).collect().getItems();
+		assertEquals("1d 02:03:04", valueOf(items, "Uptime"));
+		assertEquals("2d 02:00:00", valueOf(items, "Idle time"));
+		assertEquals(String.format(Utils.locale, "%.2f / %.2f / %.2f", 0.52, 0.40, 0.35), valueOf(items, "Load average"));
+		assertEquals("2 running of 345", valueOf(items, "Tasks"));
+	}
+
+	public void testNoSchedstat() {
+		List<ConfigBase> items = new OsActivitySampler(root.getPath()).collect().getItems();
+		for (ConfigBase item : items) {
+			assertFalse("Run queue wait".equals(item.getName()));
+		}
+	}
+
+	public void testRunQueueWaitPerSlice() throws IOException {
+		Fixtures.write(root, "schedstat", SCHEDSTAT_HEADER + cpu(0, 2000000, 100) + cpu(1, 5000000, 50));
+		OsActivitySampler sampler = new OsActivitySampler(root.getPath());
+		sampler.sampleNow();
+		// cpu0 waited 3 ms over 30 slices, cpu1 went offline
+		Fixtures.write(root, "schedstat", SCHEDSTAT_HEADER + cpu(0, 5000000, 130));
+		List<ConfigBase> items = sampler.collect().getItems();
+		ConfigList wait = (ConfigList) items.get(items.size() - 1);
+		assertEquals("Run queue wait", wait.getName());
+		assertEquals(1, wait.getItems().size());
+		assertEquals("cpu0", wait.getItems().get(0).getName());
+		String value = ((Config) wait.getItems().get(0)).getValue();
+		assertTrue(value, value.contains(", 100 µs/slice "));
+	}
+}
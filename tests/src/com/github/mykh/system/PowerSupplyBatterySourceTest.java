@@ -0,0 +1,118 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.github.mykh.Fixtures;
+
+import junit.framework.TestCase;
+
+/** Runs the sysfs battery source against a fake power_supply tree. */
+public class PowerSupplyBatterySourceTest extends TestCase {
+	private File root;
+	private long now;
+
+	private final IClock clock = new IClock() {
+		public long now() {
+			return now;
+		}
+	};
+
+	private void write(String path, String content) throws IOException {
+		Fixtures.write(root, path, content);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		root = Fixtures.createDir("power_supply");
+		write("battery/type", "Battery\n");
+		write("battery/technology", "Li-ion\n");
+		write("battery/capacity", "87\n");
+		write("battery/voltage_now", "3950000\n");
+		write("battery/current_now", "-350000\n");
+		write("battery/temp", "312\n");
+		write("battery/charge_counter", "2500000\n");
+		write("battery/status", "Discharging\n");
+		write("battery/health", "Good\n");
+		write("battery/present", "1\n");
+		write("ac/type", "Mains\n");
+		write("ac/online", "0\n");
+		write("usb/type", "USB\n");
+		write("usb/online", "0\n");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		Fixtures.delete(root);
+	}
+
+	public void testSample() {
+		now = 1000;
+		PowerSupplyBatterySource source = new PowerSupplyBatterySource(root.getPath(), clock);
+		assertTrue(source.isAvailable());
+		BatterySample sample = source.getSample();
+		assertEquals(1000, sample.getTime());
+		assertEquals(87, sample.getLevel());
+		assertEquals(0, sample.getPlugged());
+		assertEquals(3950, sample.getVoltage());
+		assertEquals(-350000, sample.getCurrent());
+		assertEquals(2500000, sample.getChargeCounter());
+		assertEquals(312, sample.getTemperature());
+		assertEquals("Li-ion", sample.getTechnology());
+		assertEquals("discharging", sample.getStatusStr());
+		assertEquals("good", sample.getHealthStr());
+	}
+
+	public void testPluggedAndHistory() throws IOException {
+		PowerSupplyBatterySource source = new PowerSupplyBatterySource(root.getPath(), clock);
+		now = 0;
+		source.sampleNow();
+		write("usb/online", "1\n");
+		write("battery/status", "Charging\n");
+		now = 250;
+		source.sampleNow();
+		assertEquals(android.os.BatteryManager.BATTERY_PLUGGED_USB, source.getSample().getPlugged());
+		assertEquals("charging", source.getSample().getStatusStr());
+		// unchanged level and plugged state: no new history record
+		now = 500;
+		source.sampleNow();
+		com.github.mykh.common.LongRingBuffer history = new com.github.mykh.common.LongRingBuffer(16,
+				BatteryHistory.WIDTH);
+		source.getHistory().copyTo(history);
+		assertEquals(2, history.size());
+		assertEquals(250, history.getLatest(BatteryHistory.TIME));
+	}
+
+	public void testDischargeRate() throws IOException {
+		PowerSupplyBatterySource source = new PowerSupplyBatterySource(root.getPath(), clock);
+		now = 0;
+		source.sampleNow();
+		write("battery/capacity", "77\n");
+		now = 60 * 60 * 1000;
+		source.sampleNow();
+		assertEquals("10.0%/h", BatteryHistory.formatDischargeRate(source.getHistory().getDischargeRate()));
+	}
+
+	public void testNoBattery() {
+		PowerSupplyBatterySource source = new PowerSupplyBatterySource(new File(root, "missing").getPath(), clock);
+		assertFalse(source.isAvailable());
+		assertSame(BatterySample.EMPTY, source.getSample());
+	}
+}
@@ -0,0 +1,101 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.github.mykh.Fixtures;
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ReflectionCache;
+
+import junit.framework.TestCase;
+
+public class PressureMonitorTest extends TestCase {
+	private File root;
+
+	private static String psi(long someTotal, boolean full) {
+		return "some avg10=1.50 avg60=0.75 avg300=0.10 total=" + someTotal + "\n"
+				+ (full ? "full avg10=0.50 avg60=0.25 avg300=0.00 total=2000\n" : "");
+	}
+
+	@Override
+	protected void setUp() throws IOException {
+		root = Fixtures.createDir("pressure");
+		Fixtures.write(root, "memory", psi(5000, true));
+		Fixtures.write(root, "cpu", psi(7000, false));
+		Fixtures.write(root, "io", psi(9000, true));
+	}
+
+	@Override
+	protected void tearDown() {
+		Fixtures.delete(root);
+	}
+
+	private static String value(List<ConfigBase> items, int index) {
+		return ((Config) items.get(index)).getValue();
+	}
+
+	public void testAveragesAndTotals() {
+		List<ConfigBase> items = new PressureMonitor(root.getPath()).collect().getItems();
+		assertEquals("memory some", items.get(0).getName());
+		assertEquals("avg10 1.50%, avg60 0.75%, avg300 0.10%, total 5 ms", value(items, 0));
+		assertEquals("memory full", items.get(1).getName());
+		assertEquals("avg10 0.50%, avg60 0.25%, avg300 0.00%, total 2 ms", value(items, 1));
+		assertEquals("cpu some", items.get(2).getName()); // no full line for cpu
+		assertEquals("io some", items.get(3).getName());
+		assertEquals("Stall events", items.get(5).getName());
+		assertEquals("off", value(items, 5));
+	}
+
+	public void testNotSupported() {
+		PressureMonitor monitor = new PressureMonitor(new File(root, "none").getPath());
+		assertFalse(monitor.isSupported());
+		assertEquals("not supported by this kernel", value(monitor.collect().getItems(), 0));
+	}
+
+	public void testPollingFallbackFiresTriggers() throws IOException {
+		if (ReflectionCache.findClass("android.system.Os") != null) {
+			return; // kernel triggers would be tried on the fixture files
+		}
+		final int[] events = { 0 };
+		PressureMonitor monitor = new PressureMonitor(root.getPath());
+		monitor.addTrigger(PressureMonitor.MEMORY, false, 70000, 60000000);
+		monitor.addListener(new IPressureListener() {
+			public void onPressureEvent(int resource, boolean full, long time) {
+				assertEquals(PressureMonitor.MEMORY, resource);
+				assertFalse(full);
+				events[0]++;
+			}
+		});
+		monitor.startMonitoring(3600000);
+		try {
+			monitor.sampleNow(); // starts the window
+			Fixtures.write(root, "memory", psi(5000 + 80000, true));
+			monitor.sampleNow();
+			monitor.sampleNow();
+			assertEquals(1, events[0]);
+			assertEquals("polling", value(monitor.collect().getItems(), 5));
+		} finally {
+			monitor.stopMonitoring();
+		}
+	}
+}
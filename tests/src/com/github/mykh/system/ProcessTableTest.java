@@ -0,0 +1,94 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.github.mykh.Fixtures;
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+
+import junit.framework.TestCase;
+
+public class ProcessTableTest extends TestCase {
+	private File root;
+	private ProcessTable table;
+
+	/** stat with the given state, utime, stime, starttime and rss pages. */
+	private static String stat(int pid, String comm, char state, long utime, long stime, long start, long rss) {
+		return pid + " (" + comm + ") " + state + " 0 1 1 0 -1 4194560 100 0 0 0 " + utime + " " + stime
+				+ " 0 0 20 0 1 0 " + start + " 10000000 " + rss + " 18446744073709551615 0 0\n";
+	}
+
+	@Override
+	protected void setUp() throws IOException {
+		root = Fixtures.createDir("proc");
+		Fixtures.write(root, "self/oom_score_adj", "0\n");
+		Fixtures.write(root, "1/stat", stat(1, "init", 'S', 5, 10, 7, 200));
+		Fixtures.write(root, "1/status", "Name:\tinit\nState:\tS (sleeping)\nUid:\t0\t0\t0\t0\n");
+		Fixtures.write(root, "1/statm", "1000 300 100 10 0 50 0\n");
+		Fixtures.write(root, "1/oom_score_adj", "-1000\n");
+		// no status: the name comes from stat, comm may contain spaces and parentheses
+		Fixtures.write(root, "42/stat", stat(42, "my (app)", 'R', 50, 50, 900, 100));
+		Fixtures.write(root, "42/oom_score_adj", "900\n");
+		Fixtures.write(root, "net/dev", "not a process\n");
+		table = new ProcessTable(root.getPath());
+	}
+
+	@Override
+	protected void tearDown() {
+		table.shutdown();
+		Fixtures.delete(root);
+	}
+
+	private static String value(List<ConfigBase> items, int index) {
+		return ((Config) items.get(index)).getValue();
+	}
+
+	public void testScan() {
+		ConfigList section = table.collect();
+		List<ConfigBase> items = section.getItems();
+		assertEquals("2", value(items, 0)); // count
+		assertEquals("1", value(items, 1)); // running
+		List<ConfigBase> byRss = ((ConfigList) items.get(4)).getItems();
+		assertEquals(2, byRss.size());
+		assertEquals("1 init", byRss.get(0).getName());
+		// statm wins over the rss of stat: 300 pages of 4 kB
+		assertEquals("state S, CPU -, RSS 1.2 MB, oom_score_adj -1000, uid 0", value(byRss, 0));
+		assertEquals("42 my (app)", byRss.get(1).getName());
+		assertEquals("state R, CPU -, RSS 0.4 MB, oom_score_adj 900, uid -1", value(byRss, 1));
+	}
+
+	public void testExitedProcessIsDropped() {
+		table.sampleNow();
+		Fixtures.delete(new File(root, "42"));
+		ConfigList section = table.collect();
+		assertEquals("1", value(section.getItems(), 0));
+	}
+
+	public void testReusedPidIsReadAgain() throws IOException {
+		table.sampleNow();
+		Fixtures.write(root, "42/stat", stat(42, "other", 'S', 0, 0, 5000, 100));
+		List<ConfigBase> byRss = ((ConfigList) table.collect().getItems().get(4)).getItems();
+		assertEquals("42 other", byRss.get(1).getName());
+	}
+}
@@ -0,0 +1,119 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.LazyConfigList;
+
+import junit.framework.TestCase;
+
+public class SectionCacheTest extends TestCase {
+	private final SectionCache cache = new SectionCache();
+
+	private static ISectionProvider provider(String name, long ttl) {
+		return new SectionProvider(name, SectionProvider.DEFAULT_TIMEOUT, ttl) {
+			public ConfigList collect() {
+				return new ConfigList(getName());
+			}
+		};
+	}
+
+	public void testLiveSectionsAreNotCached() {
+		ISectionProvider live = provider("live", ISectionProvider.TTL_LIVE);
+		cache.put(live, new ConfigList("live"));
+		assertNull(cache.get(live));
+	}
+
+	public void testStaticSectionStays() {
+		ISectionProvider constant = provider("static", ISectionProvider.TTL_STATIC);
+		ConfigList section = new ConfigList("static");
+		cache.put(constant, section);
+		assertSame(section, cache.get(constant));
+		assertSame(section, cache.get(constant));
+	}
+
+	public void testExpiresAfterTtl() throws InterruptedException {
+		ISectionProvider slow = provider("slow", 50);
+		ConfigList section = new ConfigList("slow");
+		cache.put(slow, section);
+		assertSame(section, cache.get(slow));
+		Thread.sleep(80);
+		assertNull(cache.get(slow));
+	}
+
+	public void testSectionsThatAreNotOkAreSkipped() {
+		ISectionProvider constant = provider("static", ISectionProvider.TTL_STATIC);
+		ConfigList timedOut = new ConfigList("static");
+		timedOut.setState(ConfigList.State.TIMED_OUT, "no result");
+		cache.put(constant, timedOut);
+		assertNull(cache.get(constant));
+		ConfigList failed = new ConfigList("static");
+		failed.setState(ConfigList.State.FAILED, "boom");
+		cache.put(constant, failed);
+		assertNull(cache.get(constant));
+	}
+
+	public void testCachedSectionsAreSealed() {
+		ISectionProvider constant = provider("static", ISectionProvider.TTL_STATIC);
+		cache.put(constant, new ConfigList("static"));
+		try {
+			cache.get(constant).getItems().add(new ConfigList("x"));
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	public void testClear() {
+		ISectionProvider constant = provider("static", ISectionProvider.TTL_STATIC);
+		cache.put(constant, new ConfigList("static"));
+		cache.clear();
+		assertNull(cache.get(constant));
+	}
+
+	private static LazyConfigList failingLazy() {
+		return new LazyConfigList("lazy", new Callable<List<ConfigBase>>() {
+			public List<ConfigBase> call() {
+				throw new IllegalStateException("boom");
+			}
+		});
+	}
+
+	public void testLazySectionIsStoredUnevaluated() {
+		ISectionProvider constant = provider("lazy", ISectionProvider.TTL_STATIC);
+		LazyConfigList section = failingLazy();
+		cache.put(constant, section);
+		assertFalse(section.isEvaluated());
+		assertSame(section, cache.get(constant));
+		assertFalse(section.isEvaluated());
+	}
+
+	public void testFailedLazySectionIsDropped() {
+		ISectionProvider constant = provider("lazy", ISectionProvider.TTL_STATIC);
+		LazyConfigList section = failingLazy();
+		cache.put(constant, section);
+		// rendering evaluates it
+		assertEquals(ConfigList.State.FAILED, section.getState());
+		assertNull(cache.get(constant));
+	}
+}
@@ -0,0 +1,133 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import com.github.mykh.common.ConfigList;
+
+import junit.framework.TestCase;
+
+public class SectionCollectorTest extends TestCase {
+	private final CountDownLatch blocked = new CountDownLatch(1);
+	private SectionCollector collector;
+
+	private static ISectionProvider sleeping(String name, long timeout, final long sleep) {
+		return new SectionProvider(name, timeout) {
+			public ConfigList collect() throws InterruptedException {
+				Thread.sleep(sleep);
+				return new ConfigList(getName());
+			}
+		};
+	}
+
+	private ISectionProvider blocking(String name, long timeout) {
+		return new SectionProvider(name, timeout) {
+			public ConfigList collect() throws InterruptedException {
+				blocked.await();
+				return new ConfigList(getName());
+			}
+		};
+	}
+
+	private ConfigList collect(ISectionProvider... providers) {
+		List<ISectionProvider> list = new ArrayList<ISectionProvider>();
+		for (ISectionProvider provider : providers) {
+			list.add(provider);
+		}
+		ConfigList result = new ConfigList("");
+		collector.collect(list, result);
+		return result;
+	}
+
+	private static ConfigList.State state(ConfigList result, int index) {
+		return ((ConfigList) result.getItems().get(index)).getState();
+	}
+
+	@Override
+	protected void setUp() {
+		collector = new SectionCollector(1, new SectionCache());
+	}
+
+	@Override
+	protected void tearDown() {
+		blocked.countDown();
+		collector.shutdown();
+	}
+
+	public void testDeadlineCountsFromTaskStart() {
+		// one thread: the second section waits 200 ms in the queue, then runs for 200 ms
+		ConfigList result = collect(sleeping("a", 300, 200), sleeping("b", 300, 200));
+		assertEquals(ConfigList.State.OK, state(result, 0));
+		assertEquals(ConfigList.State.OK, state(result, 1));
+	}
+
+	public void testSectionsInProviderOrder() {
+		collector = new SectionCollector(3, new SectionCache());
+		ConfigList result = collect(sleeping("slow", 1000, 100), sleeping("fast", 1000, 0),
+				sleeping("medium", 1000, 50));
+		assertEquals("slow", result.getItems().get(0).getName());
+		assertEquals("fast", result.getItems().get(1).getName());
+		assertEquals("medium", result.getItems().get(2).getName());
+	}
+
+	public void testTimeoutAndFailure() {
+		collector = new SectionCollector(2, new SectionCache());
+		ISectionProvider failing = new SectionProvider("failing", 1000) {
+			public ConfigList collect() {
+				throw new IllegalStateException("boom");
+			}
+		};
+		ConfigList result = collect(blocking("stuck", 100), failing);
+		assertEquals(ConfigList.State.TIMED_OUT, state(result, 0));
+		assertEquals(ConfigList.State.FAILED, state(result, 1));
+		assertTrue(((ConfigList) result.getItems().get(1)).getStateMessage().contains("boom"));
+	}
+
+	public void testAbandonedWorkersAreCapped() throws InterruptedException {
+		for (int i = 0; i < SectionCollector.MAX_ABANDONED + 2; i++) {
+			ConfigList result = collect(blocking("stuck" + i, 100));
+			assertEquals(ConfigList.State.TIMED_OUT, state(result, 0));
+		}
+		assertEquals(SectionCollector.MAX_ABANDONED, collector.getAbandonedCount());
+
+		// the extra threads go away once the stuck workers return
+		blocked.countDown();
+		for (int i = 0; i < 100 && collector.getAbandonedCount() > 0; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, collector.getAbandonedCount());
+		assertEquals(ConfigList.State.OK, state(collect(sleeping("after", 1000, 0)), 0));
+	}
+
+	public void testCachedSectionIsNotCollectedAgain() {
+		final int[] calls = { 0 };
+		ISectionProvider counted = new SectionProvider("static", 1000, ISectionProvider.TTL_STATIC) {
+			public ConfigList collect() {
+				calls[0]++;
+				return new ConfigList(getName());
+			}
+		};
+		collect(counted);
+		collect(counted);
+		assertEquals(1, calls[0]);
+	}
+}
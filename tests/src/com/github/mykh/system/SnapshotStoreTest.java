@@ -0,0 +1,123 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.mykh.Fixtures;
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBoolean;
+import com.github.mykh.common.ConfigDouble;
+import com.github.mykh.common.ConfigEnum;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.ConfigLong;
+import com.github.mykh.common.Unit;
+
+import junit.framework.TestCase;
+
+public class SnapshotStoreTest extends TestCase {
+	private File dir;
+	private File file;
+	private SnapshotStore store;
+
+	@Override
+	protected void setUp() throws IOException {
+		dir = Fixtures.createDir("snapshot");
+		file = new File(dir, "sections.snapshot");
+		store = new SnapshotStore(file);
+	}
+
+	@Override
+	protected void tearDown() {
+		Fixtures.delete(dir);
+	}
+
+	private static Map<String, ConfigList> sections() {
+		ConfigList os = new ConfigList("OS", "hint");
+		os.getItems().add(new Config("Version", "2.3"));
+		os.getItems().add(new Config("Missing", null));
+		os.getItems().add(new ConfigLong("RAM", 512 * 1024 * 1024L, Unit.BYTES));
+		os.getItems().add(new ConfigDouble("Level", 87.5, 1, Unit.PERCENT));
+		os.getItems().add(new ConfigBoolean("Emulated", true));
+		os.getItems().add(new ConfigEnum("Status", 3, "discharging"));
+		ConfigList inner = new ConfigList("Inner");
+		inner.setState(ConfigList.State.TIMED_OUT, "no result");
+		os.getItems().add(inner);
+		Map<String, ConfigList> sections = new HashMap<String, ConfigList>();
+		sections.put("OS", os);
+		return sections;
+	}
+
+	public void testRoundTripKeepsTypesAndState() throws IOException {
+		store.save(SnapshotStore.encode("key", sections()));
+		ConfigList os = store.load("key").get("OS");
+		assertEquals("hint", os.getHint());
+		assertEquals(7, os.getItems().size());
+		assertEquals("2.3", ((Config) os.getItems().get(0)).getValue());
+		assertNull(((Config) os.getItems().get(1)).getValue());
+		assertEquals(512 * 1024 * 1024L, ((ConfigLong) os.getItems().get(2)).getLong());
+		assertEquals(Unit.BYTES, ((ConfigLong) os.getItems().get(2)).getUnit());
+		assertEquals("87.5%", ((ConfigDouble) os.getItems().get(3)).getValue());
+		assertTrue(((ConfigBoolean) os.getItems().get(4)).getBoolean());
+		assertEquals(3, ((ConfigEnum) os.getItems().get(5)).getCode());
+		assertEquals("discharging", ((ConfigEnum) os.getItems().get(5)).getLabel());
+		ConfigList inner = (ConfigList) os.getItems().get(6);
+		assertEquals(ConfigList.State.TIMED_OUT, inner.getState());
+		assertEquals("no result", inner.getStateMessage());
+	}
+
+	public void testOtherKeyIsIgnored() throws IOException {
+		store.save(SnapshotStore.encode("key", sections()));
+		assertTrue(store.load("other").isEmpty());
+	}
+
+	public void testTruncatedFileIsDeleted() throws IOException {
+		store.save(SnapshotStore.encode("key", sections()));
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(raf.length() - 5);
+		raf.close();
+		assertTrue(store.load("key").isEmpty());
+		assertFalse(file.exists());
+	}
+
+	public void testHugeLengthIsRejected() throws IOException {
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		out.writeInt(0x53495333);
+		out.writeInt(Integer.MAX_VALUE - 8); // key length
+		out.close();
+		assertTrue(store.load("key").isEmpty());
+		assertFalse(file.exists());
+	}
+
+	public void testGarbageIsDeleted() throws IOException {
+		Fixtures.write(dir, file.getName(), "not a snapshot at all");
+		assertTrue(store.load("key").isEmpty());
+		assertFalse(file.exists());
+	}
+
+	public void testMissingFile() {
+		assertTrue(store.load("key").isEmpty());
+	}
+}
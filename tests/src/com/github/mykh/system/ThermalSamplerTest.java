@@ -0,0 +1,85 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.github.mykh.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.github.mykh.Fixtures;
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigList;
+
+import junit.framework.TestCase;
+
+public class ThermalSamplerTest extends TestCase {
+	private File root;
+
+	@Override
+	protected void setUp() throws IOException {
+		root = Fixtures.createDir("thermal");
+		Fixtures.write(root, "thermal_zone0/type", "cpu\n");
+		Fixtures.write(root, "thermal_zone0/temp", "45500\n");
+		Fixtures.write(root, "thermal_zone1/type", "battery\n");
+		Fixtures.write(root, "thermal_zone1/temp", "31\n"); // whole degrees
+		Fixtures.write(root, "thermal_zone2/type", "disabled\n"); // no temp, the read fails
+		Fixtures.write(root, "cooling_device0/type", "fan\n");
+		Fixtures.write(root, "cooling_device0/max_state", "3\n");
+		Fixtures.write(root, "cooling_device0/cur_state", "1\n");
+	}
+
+	@Override
+	protected void tearDown() {
+		Fixtures.delete(root);
+	}
+
+	private static List<ConfigBase> list(ConfigList section, int index) {
+		return ((ConfigList) section.getItems().get(index)).getItems();
+	}
+
+	public void testZonesAndCoolingDevices() {
+		ConfigList section = new ThermalSampler(root.getPath()).collect();
+		List<ConfigBase> zones = list(section, 0);
+		assertEquals(2, zones.size());
+		assertEquals("cpu", zones.get(0).getName());
+		assertEquals("45.5°C (45.5°C / 45.5°C / 45.5°C)", ((Config) zones.get(0)).getValue());
+		assertEquals("battery", zones.get(1).getName());
+		assertTrue(((Config) zones.get(1)).getValue().startsWith("31.0°C"));
+		List<ConfigBase> cooling = list(section, 1);
+		assertEquals(1, cooling.size());
+		assertEquals("fan", cooling.get(0).getName());
+		assertEquals("1 / 3", ((Config) cooling.get(0)).getValue());
+	}
+
+	public void testHistory() throws IOException {
+		ThermalSampler sampler = new ThermalSampler(root.getPath());
+		sampler.sampleNow();
+		Fixtures.write(root, "thermal_zone0/temp", "50500\n");
+		// collect() takes the second sample, the sampler is not running
+		Config cpu = (Config) list(sampler.collect(), 0).get(0);
+		assertEquals("50.5°C (45.5°C / 48.0°C / 50.5°C)", cpu.getValue());
+	}
+
+	public void testMissingDirectory() {
+		ConfigList section = new ThermalSampler(new File(root, "none").getPath()).collect();
+		assertEquals(0, list(section, 0).size());
+		assertEquals(0, list(section, 1).size());
+	}
+}
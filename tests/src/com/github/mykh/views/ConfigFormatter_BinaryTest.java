@@ -0,0 +1,148 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.views;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigBase;
+import com.github.mykh.common.ConfigBoolean;
+import com.github.mykh.common.ConfigDouble;
+import com.github.mykh.common.ConfigEnum;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.ConfigLong;
+import com.github.mykh.common.Unit;
+
+import junit.framework.TestCase;
+
+public class ConfigFormatter_BinaryTest extends TestCase {
+	private static ConfigList sample() {
+		ConfigList root = new ConfigList("Root", "hint with \"quotes\"\n");
+		root.getItems().add(new Config("text", "ü€𝄞\t"));
+		root.getItems().add(new Config("null", null));
+		root.getItems().add(new Config((String) null, "no name"));
+		root.getItems().add(new ConfigLong("long", -123456789012L, Unit.BYTES));
+		root.getItems().add(new ConfigDouble("double", 31.25, 1, Unit.CELSIUS, "tenths"));
+		root.getItems().add(new ConfigBoolean("boolean", true));
+		root.getItems().add(new ConfigEnum("enum", 2, "good"));
+		root.getItems().add(new ConfigEnum("code", 7, null));
+		for (int i = 0; i < 3; i++) {
+			ConfigList repeated = new ConfigList("Repeated");
+			repeated.getItems().add(new Config("name", "value " + i, "same hint"));
+			root.getItems().add(repeated);
+		}
+		ConfigList failed = new ConfigList("Failed");
+		failed.setState(ConfigList.State.FAILED, "boom");
+		root.getItems().add(failed);
+		return root;
+	}
+
+	private static void assertTreeEquals(ConfigBase expected, ConfigBase actual) {
+		assertEquals(expected.getClass(), actual.getClass());
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getHint(), actual.getHint());
+		if (expected instanceof ConfigList) {
+			ConfigList expectedList = (ConfigList) expected;
+			ConfigList actualList = (ConfigList) actual;
+			assertEquals(expectedList.getState(), actualList.getState());
+			assertEquals(expectedList.getStateMessage(), actualList.getStateMessage());
+			assertEquals(expectedList.getItems().size(), actualList.getItems().size());
+			for (int i = 0; i < expectedList.getItems().size(); i++) {
+				assertTreeEquals(expectedList.getItems().get(i), actualList.getItems().get(i));
+			}
+		} else {
+			assertEquals(((Config) expected).getValue(), ((Config) actual).getValue());
+		}
+		if (expected instanceof ConfigLong) {
+			assertEquals(((ConfigLong) expected).getLong(), ((ConfigLong) actual).getLong());
+			assertEquals(((ConfigLong) expected).getUnit(), ((ConfigLong) actual).getUnit());
+		} else if (expected instanceof ConfigDouble) {
+			assertEquals(((ConfigDouble) expected).getDouble(), ((ConfigDouble) actual).getDouble(), 0);
+			assertEquals(((ConfigDouble) expected).getDecimals(), ((ConfigDouble) actual).getDecimals());
+		} else if (expected instanceof ConfigEnum) {
+			assertEquals(((ConfigEnum) expected).getCode(), ((ConfigEnum) actual).getCode());
+			assertEquals(((ConfigEnum) expected).getLabel(), ((ConfigEnum) actual).getLabel());
+		}
+	}
+
+	public void testRoundTrip() throws IOException {
+		ConfigList root = sample();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ConfigFormatter_Binary formatter = new ConfigFormatter_Binary(out);
+		formatter.write(root);
+		// the second tree refers to the dictionary built by the first one
+		formatter.write(root);
+		ConfigReader_Binary reader = new ConfigReader_Binary(ByteBuffer.wrap(out.toByteArray()));
+		assertTreeEquals(root, reader.read());
+		assertTreeEquals(root, reader.read());
+		assertFalse(reader.hasMore());
+	}
+
+	public void testDictionaryShrinksRepeatedStrings() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ConfigFormatter_Binary formatter = new ConfigFormatter_Binary(out);
+		formatter.write(sample());
+		int first = out.size();
+		formatter.write(sample());
+		assertTrue(out.size() - first < first);
+	}
+
+	public void testSink() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ConfigFormatter_Binary sink = new ConfigFormatter_Binary(out);
+		ConfigList first = new ConfigList("First");
+		first.getItems().add(new Config("a", "1"));
+		ConfigList second = new ConfigList("Second");
+		sink.onSection(0, first);
+		sink.onSection(1, second);
+		sink.onComplete();
+		assertNull(sink.getError());
+		ConfigReader_Binary reader = new ConfigReader_Binary(ByteBuffer.wrap(out.toByteArray()));
+		assertTreeEquals(first, reader.read());
+		assertTreeEquals(second, reader.read());
+		assertFalse(reader.hasMore());
+	}
+
+	public void testVarints() throws IOException {
+		long[] values = { 0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, Long.MAX_VALUE, -1 };
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ConfigFormatter_Binary formatter = new ConfigFormatter_Binary(out);
+		for (long value : values) {
+			formatter.writeVarint(value);
+		}
+		ConfigReader_Binary reader = new ConfigReader_Binary(ByteBuffer.wrap(out.toByteArray()));
+		for (long value : values) {
+			assertEquals(value, reader.readVarint());
+		}
+	}
+
+	public void testTruncatedInputFails() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ConfigFormatter_Binary(out).write(sample());
+		byte[] truncated = Arrays.copyOf(out.toByteArray(), 20);
+		try {
+			new ConfigReader_Binary(ByteBuffer.wrap(truncated)).read();
+			fail("no exception for truncated input");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
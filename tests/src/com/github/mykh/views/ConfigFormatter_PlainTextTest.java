@@ -0,0 +1,79 @@
+/*
+* Android System Information
+* Copyright (C) 2010-2012 mykh
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.github.mykh.views;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import com.github.mykh.common.Config;
+import com.github.mykh.common.ConfigList;
+import com.github.mykh.common.ConfigLong;
+import com.github.mykh.common.Unit;
+
+import junit.framework.TestCase;
+
+public class ConfigFormatter_PlainTextTest extends TestCase {
+	private static String format(ConfigList list) throws IOException {
+		StringBuilder out = new StringBuilder();
+		new ConfigFormatter_PlainText().process(list, out, 0);
+		return out.toString();
+	}
+
+	public void testSection() throws IOException {
+		ConfigList section = new ConfigList("OS");
+		section.getItems().add(new Config("Version", "2.3"));
+		section.getItems().add(new Config("Missing", null));
+		section.getItems().add(new ConfigLong("Count", 42, Unit.NONE));
+		assertEquals("# OS #\nVersion: 2.3\nMissing: <None>\nCount: 42\n", format(section));
+	}
+
+	public void testNestedListsAreIndentedAndSeparated() throws IOException {
+		ConfigList root = new ConfigList("");
+		ConfigList first = new ConfigList("A");
+		first.getItems().add(new Config("x", "1"));
+		ConfigList inner = new ConfigList("B");
+		inner.getItems().add(new Config("y", "2"));
+		first.getItems().add(inner);
+		root.getItems().add(first);
+		assertEquals(" # A #\n x: 1\n\n  # B #\n  y: 2\n", format(root));
+	}
+
+	public void testUnimplementedItemsAreHidden() throws IOException {
+		ConfigList section = new ConfigList("Misc");
+		section.getItems().add(new Config("*Later", "x"));
+		section.getItems().add(new Config("Shown", "y"));
+		assertEquals("# Misc #\nShown: y\n", format(section));
+	}
+
+	public void testStates() throws IOException {
+		ConfigList timedOut = new ConfigList("Slow");
+		timedOut.setState(ConfigList.State.TIMED_OUT, "no result in 2000 ms");
+		assertEquals("# Slow #\n<Timed out>\n", format(timedOut));
+		ConfigList failed = new ConfigList("Broken");
+		failed.setState(ConfigList.State.FAILED, "boom");
+		assertEquals("# Broken #\n<Failed: boom>\n", format(failed));
+	}
+
+	public void testDeepIndentation() throws IOException {
+		StringWriter out = new StringWriter();
+		new ConfigFormatter_PlainText().process(new Config("deep", "v"), out, 100);
+		String text = out.toString();
+		assertEquals(100, text.indexOf('d'));
+		assertEquals("deep: v\n", text.substring(100));
+	}
+}